@@ -0,0 +1,300 @@
+package com.alexweinert.pwgen;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alexweinert.pwgen.PasswordFactory.TriValueBoolean;
+
+/**
+ * Measures PasswordFactory.getPassword(int) for every combination of options supported by the Builder. Optionally
+ * measures getPasswords(int, int) with a given batch size, or getPassword(char[], int, int) into a reused buffer.
+ *
+ * For each factory, option combination and length, reports the throughput in passwords per second, the number of
+ * bytes allocated per password, and the average number of discarded passwords and of random draws per returned
+ * password. The latter two are counted on a separate factory with metrics, so they do not distort the throughput.
+ * Runs on a HotSpot JVM, which provides the per-thread allocation counter.
+ *
+ * Usage: PasswordFactoryBenchmark [-factory random|pronouncable|trigram] [-mode rejection|singlepass]
+ * [-random java|secure] [-batch size | -buffer] [-lengths 8,16,...] [-warmup ms] [-measure ms]
+ */
+public class PasswordFactoryBenchmark {
+
+    private static final String[] FACTORY_NAMES = { "random", "pronouncable", "trigram" };
+
+    static final String[] OPTION_NAMES = { "lowercase", "uppercase", "digits", "symbols", "ambiguous",
+            "vowels" };
+
+    private static final int[] DEFAULT_LENGTHS = { 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096 };
+
+    private static final int CALLS_PER_CHECK = 16;
+
+    /** Number of passwords generated to count retries and random draws */
+    private static final int METRICS_SAMPLE_SIZE = 1000;
+
+    private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    private final long warmupMillis;
+    private final long measureMillis;
+    /** Number of passwords generated per call to getPasswords, or 0 to call getPassword */
+    private final int batchSize;
+    /** True if passwords are written into a reused buffer instead of being returned as Strings */
+    private final boolean useBuffer;
+
+    /** Accumulates parts of the generated passwords so that the JIT cannot drop the calls */
+    private long sink;
+
+    private PasswordFactoryBenchmark(long warmupMillis, long measureMillis, int batchSize, boolean useBuffer) {
+        this.warmupMillis = warmupMillis;
+        this.measureMillis = measureMillis;
+        this.batchSize = batchSize;
+        this.useBuffer = useBuffer;
+    }
+
+    private static class Result {
+        double passwordsPerSecond;
+        double bytesPerPassword;
+        double retriesPerPassword;
+        double randomIntsPerPassword;
+    }
+
+    private Result run(PasswordFactory factory, PasswordFactory meteredFactory, int length) {
+        this.measure(factory, length, this.warmupMillis);
+        Result result = this.measure(factory, length, this.measureMillis);
+
+        PasswordFactoryMetrics metrics = meteredFactory.getMetrics();
+        metrics.reset();
+        for (int i = 0; i < METRICS_SAMPLE_SIZE; ++i) {
+            this.sink += meteredFactory.getPassword(length).charAt(0);
+        }
+        result.retriesPerPassword = (double) metrics.getRejectedPasswordCount() / METRICS_SAMPLE_SIZE;
+        result.randomIntsPerPassword = (double) metrics.getRandomIntCount() / METRICS_SAMPLE_SIZE;
+        return result;
+    }
+
+    private Result measure(PasswordFactory factory, int length, long millis) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = this.threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long deadline = start + millis * 1000000L;
+
+        char[] buffer = new char[length];
+        long calls = 0;
+        long now;
+        do {
+            if (this.useBuffer) {
+                for (int i = 0; i < CALLS_PER_CHECK; ++i) {
+                    factory.getPassword(buffer, 0, length);
+                    this.sink += buffer[0];
+                }
+                calls += CALLS_PER_CHECK;
+            } else if (this.batchSize > 0) {
+                this.sink += factory.getPasswords(this.batchSize, length).getCharacters()[0];
+                calls += this.batchSize;
+            } else {
+                for (int i = 0; i < CALLS_PER_CHECK; ++i) {
+                    this.sink += factory.getPassword(length).charAt(0);
+                }
+                calls += CALLS_PER_CHECK;
+            }
+            now = System.nanoTime();
+        } while (now < deadline);
+
+        Result result = new Result();
+        result.passwordsPerSecond = calls / ((now - start) / 1e9);
+        result.bytesPerPassword = (double) (this.threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore)
+                / calls;
+        return result;
+    }
+
+    private static PasswordFactory createFactory(String factoryName, boolean singlePass, boolean secure,
+            TriValueBoolean[] options, PasswordFactoryMetrics metrics) {
+        IRandom random = secure ? new SecureRandomGenerator() : new RandomGenerator();
+        PasswordFactory.Builder builder = new PasswordFactory.Builder(random).collectMetrics(metrics);
+        if (factoryName.equals("random")) {
+            builder.mightNotBePronouncable();
+        } else {
+            builder.mustBePronouncable();
+        }
+        if (factoryName.equals("trigram")) {
+            builder.useTrigrams();
+        } else {
+            builder.useElements();
+        }
+        if (singlePass) {
+            builder.satisfyInSinglePass();
+        } else {
+            builder.satisfyByRejection();
+        }
+        for (int i = 0; i < options.length; ++i) {
+            configureOption(builder, i, options[i]);
+        }
+        return builder.create();
+    }
+
+    static void configureOption(PasswordFactory.Builder builder, int option, TriValueBoolean value) {
+        switch (option) {
+        case 0:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeLowercase();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeLowercase();
+            } else {
+                builder.mustNotIncludeLowercase();
+            }
+            break;
+        case 1:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeUppercase();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeUppercase();
+            } else {
+                builder.mustNotIncludeUppercase();
+            }
+            break;
+        case 2:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeDigits();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeDigits();
+            } else {
+                builder.mustNotIncludeDigits();
+            }
+            break;
+        case 3:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeSymbols();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeSymbols();
+            } else {
+                builder.mustNotIncludeSymbols();
+            }
+            break;
+        case 4:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeAmbiguous();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeAmbiguous();
+            } else {
+                builder.mustNotIncludeAmbiguous();
+            }
+            break;
+        case 5:
+            if (value == TriValueBoolean.MUST) {
+                builder.mustIncludeVowels();
+            } else if (value == TriValueBoolean.MAY) {
+                builder.mayIncludeVowels();
+            } else {
+                builder.mustNotIncludeVowels();
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    /** Returns all assignments of MUST, MAY and MUSTNOT to the options of the Builder */
+    private static List<TriValueBoolean[]> getOptionCombinations() {
+        TriValueBoolean[] values = TriValueBoolean.values();
+        int combinationCount = 1;
+        for (int i = 0; i < OPTION_NAMES.length; ++i) {
+            combinationCount *= values.length;
+        }
+
+        List<TriValueBoolean[]> returnValue = new ArrayList<TriValueBoolean[]>(combinationCount);
+        for (int combination = 0; combination < combinationCount; ++combination) {
+            TriValueBoolean[] options = new TriValueBoolean[OPTION_NAMES.length];
+            int remainder = combination;
+            for (int i = 0; i < options.length; ++i) {
+                options[i] = values[remainder % values.length];
+                remainder /= values.length;
+            }
+            returnValue.add(options);
+        }
+        return returnValue;
+    }
+
+    private static int[] parseLengths(String argument) {
+        String[] parts = argument.split(",");
+        int[] returnValue = new int[parts.length];
+        for (int i = 0; i < parts.length; ++i) {
+            returnValue[i] = Integer.parseInt(parts[i].trim());
+        }
+        return returnValue;
+    }
+
+    public static void main(String[] args) {
+        String onlyFactory = null;
+        boolean singlePass = false;
+        boolean secure = false;
+        int batchSize = 0;
+        boolean useBuffer = false;
+        int[] lengths = DEFAULT_LENGTHS;
+        long warmupMillis = 50, measureMillis = 100;
+
+        for (int i = 0; i < args.length; ++i) {
+            if (args[i].equals("-factory") && i + 1 < args.length) {
+                onlyFactory = args[++i];
+            } else if (args[i].equals("-mode") && i + 1 < args.length) {
+                singlePass = args[++i].equals("singlepass");
+            } else if (args[i].equals("-random") && i + 1 < args.length) {
+                secure = args[++i].equals("secure");
+            } else if (args[i].equals("-batch") && i + 1 < args.length) {
+                batchSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-buffer")) {
+                useBuffer = true;
+            } else if (args[i].equals("-lengths") && i + 1 < args.length) {
+                lengths = parseLengths(args[++i]);
+            } else if (args[i].equals("-warmup") && i + 1 < args.length) {
+                warmupMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-measure") && i + 1 < args.length) {
+                measureMillis = Long.parseLong(args[++i]);
+            } else {
+                System.err.println("Usage: PasswordFactoryBenchmark [-factory random|pronouncable|trigram] "
+                        + "[-mode rejection|singlepass] [-random java|secure] [-batch size | -buffer] "
+                        + "[-lengths 8,16,...] [-warmup ms] [-measure ms]");
+                System.exit(1);
+            }
+        }
+
+        PasswordFactoryBenchmark benchmark = new PasswordFactoryBenchmark(warmupMillis, measureMillis, batchSize,
+                useBuffer);
+        StringBuilder header = new StringBuilder("factory");
+        for (String optionName : OPTION_NAMES) {
+            header.append(',').append(optionName);
+        }
+        header.append(",length,passwords/s,bytes/password,retries/password,random ints/password");
+        System.out.println(header);
+
+        for (String factoryName : FACTORY_NAMES) {
+            if (onlyFactory != null && !onlyFactory.equals(factoryName)) {
+                continue;
+            }
+            for (TriValueBoolean[] options : getOptionCombinations()) {
+                PasswordFactory factory = createFactory(factoryName, singlePass, secure, options, null);
+                PasswordFactory meteredFactory = createFactory(factoryName, singlePass, secure, options,
+                        new PasswordFactoryMetrics());
+                for (int length : lengths) {
+                    Result result = benchmark.run(factory, meteredFactory, length);
+
+                    StringBuilder line = new StringBuilder(factoryName);
+                    for (TriValueBoolean option : options) {
+                        line.append(',').append(option);
+                    }
+                    line.append(',').append(length);
+                    line.append(',').append(String.format("%.1f", result.passwordsPerSecond));
+                    line.append(',').append(String.format("%.1f", result.bytesPerPassword));
+                    line.append(',').append(String.format("%.4f", result.retriesPerPassword));
+                    line.append(',').append(String.format("%.1f", result.randomIntsPerPassword));
+                    System.out.println(line);
+                }
+            }
+        }
+
+        // Keep the sink alive
+        if (benchmark.sink == 42) {
+            System.err.println();
+        }
+    }
+}
@@ -0,0 +1,762 @@
+package com.alexweinert.pwgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.alexweinert.pwgen.PasswordFactory.TriValueBoolean;
+
+/**
+ * Checks that a PasswordFactory configuration creates passwords with the distribution it is meant to have, so that
+ * optimizations of the factories or the random number generators cannot silently introduce bias.
+ *
+ * Generates many passwords on all processors. Each thread counts into its own primitive counters, which are merged at
+ * the end. Then runs the following tests, each of which fails if its statistic deviates from the expected value by
+ * more than the threshold in standard deviations:
+ *
+ * - For each position, a chi-square test of the character frequencies against the model
+ *
+ * - For each character, its frequency over all positions against the model, with a conservative bound on the variance
+ * since the positions of a password are not independent
+ *
+ * - For each position, the serial correlation between consecutive passwords of a thread, which must be 0
+ *
+ * - For each pair of adjacent positions, the serial correlation within a password against the model, if it has one
+ *
+ * The models follow the specification of the generation rather than the code of the factories: Random passwords are
+ * uniform over all admissable passwords, which inclusion-exclusion over the required classes counts exactly.
+ * Pronouncable passwords follow a Markov chain over the states of the generation, i.e., the kind of the next element,
+ * whether it is the first one, whether the previous one was a vowel and which required classes are included so far,
+ * conditioned on the password including all of them. The chain derives the character frequencies from the element
+ * frequencies, so a biased choice of elements shows up in them. Trigram passwords have no model and are only checked
+ * for serial correlation. Exits with status 1 if a test fails.
+ *
+ * Usage: PasswordQualityHarness [-factory random|pronouncable|trigram] [-mode rejection|singlepass] [-weighted]
+ * [-random splittable|java|secure] [-seed n] [-length n] [-samples n] [-threads n] [-threshold z]
+ * [-lowercase|-uppercase|-digits|-symbols|-ambiguous|-vowels must|may|mustnot]
+ */
+public class PasswordQualityHarness {
+
+    /** Characters are counted as ASCII, anything else counts as DEL, which no pool contains */
+    private static final int ALPHABET_SIZE = 128;
+
+    /** Bins with fewer expected occurrences are merged, so that the chi-square approximation holds */
+    private static final double MINIMUM_EXPECTED_COUNT = 5;
+
+    /** The sums kept for each correlation: x, y, x * x, y * y and x * y */
+    private static final int SUM_COUNT = 5;
+
+    private final PasswordFactory factory;
+    private final Model model;
+    private final int length;
+    private final double threshold;
+
+    private int failureCount = 0;
+
+    private PasswordQualityHarness(PasswordFactory factory, Model model, int length, double threshold) {
+        this.factory = factory;
+        this.model = model;
+        this.length = length;
+        this.threshold = threshold;
+    }
+
+    /** The counts of one thread, merged at the end */
+    private static class Counters {
+        /** The number of passwords */
+        long passwordCount;
+        /** The number of each character at each position, indexed by position * ALPHABET_SIZE + character */
+        final long[] characterCounts;
+        /** The number of pairs of consecutive passwords */
+        long serialPairCount;
+        /** The sums for the correlation between the same position of consecutive passwords, SUM_COUNT per position */
+        final long[] serialSums;
+        /** The sums for the correlation between adjacent positions of a password, SUM_COUNT per position */
+        final long[] adjacentSums;
+
+        Counters(int length) {
+            this.characterCounts = new long[length * ALPHABET_SIZE];
+            this.serialSums = new long[length * SUM_COUNT];
+            this.adjacentSums = new long[Math.max(0, length - 1) * SUM_COUNT];
+        }
+
+        void merge(Counters other) {
+            this.passwordCount += other.passwordCount;
+            this.serialPairCount += other.serialPairCount;
+            add(this.characterCounts, other.characterCounts);
+            add(this.serialSums, other.serialSums);
+            add(this.adjacentSums, other.adjacentSums);
+        }
+
+        private static void add(long[] sums, long[] summands) {
+            for (int i = 0; i < sums.length; ++i) {
+                sums[i] += summands[i];
+            }
+        }
+    }
+
+    private static void addPair(long[] sums, int index, int x, int y) {
+        int offset = index * SUM_COUNT;
+        sums[offset] += x;
+        sums[offset + 1] += y;
+        sums[offset + 2] += x * x;
+        sums[offset + 3] += y * y;
+        sums[offset + 4] += x * y;
+    }
+
+    /** Returns the correlation of the pairs summed up in sums at the given index, or NaN if a variance is 0 */
+    private static double getCorrelation(long[] sums, int index, long pairCount) {
+        int offset = index * SUM_COUNT;
+        double n = pairCount;
+        double x = sums[offset], y = sums[offset + 1];
+        double varianceX = n * sums[offset + 2] - x * x;
+        double varianceY = n * sums[offset + 3] - y * y;
+        if (varianceX <= 0 || varianceY <= 0) {
+            return Double.NaN;
+        }
+        return (n * sums[offset + 4] - x * y) / Math.sqrt(varianceX * varianceY);
+    }
+
+    private Counters count(long samples) {
+        Counters counters = new Counters(this.length);
+        char[] password = new char[this.factory.getMaximumPasswordLength(this.length)];
+        char[] previous = new char[this.length];
+        for (long sample = 0; sample < samples; ++sample) {
+            this.factory.getPassword(password, 0, this.length);
+            for (int position = 0; position < this.length; ++position) {
+                int character = Math.min(password[position], ALPHABET_SIZE - 1);
+                ++counters.characterCounts[position * ALPHABET_SIZE + character];
+                if (position > 0) {
+                    addPair(counters.adjacentSums, position - 1, Math.min(password[position - 1], ALPHABET_SIZE - 1),
+                            character);
+                }
+                if (sample > 0) {
+                    addPair(counters.serialSums, position, Math.min(previous[position], ALPHABET_SIZE - 1), character);
+                }
+            }
+            System.arraycopy(password, 0, previous, 0, this.length);
+        }
+        counters.passwordCount = samples;
+        counters.serialPairCount = Math.max(0, samples - 1);
+        return counters;
+    }
+
+    private Counters countInParallel(long samples, int threadCount) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Counters>> results = new ArrayList<Future<Counters>>();
+            for (int thread = 0; thread < threadCount; ++thread) {
+                final long threadSamples = samples / threadCount + (thread < samples % threadCount ? 1 : 0);
+                results.add(executor.submit(new Callable<Counters>() {
+                    @Override
+                    public Counters call() {
+                        return PasswordQualityHarness.this.count(threadSamples);
+                    }
+                }));
+            }
+
+            Counters returnValue = new Counters(this.length);
+            for (Future<Counters> result : results) {
+                returnValue.merge(result.get());
+            }
+            return returnValue;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not generate passwords", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void report(String test, double statistic, double z) {
+        boolean failed = !(Math.abs(z) <= this.threshold);
+        if (failed) {
+            ++this.failureCount;
+        }
+        System.out.println(String.format("%-40s %14.6g %10.2f%s", test, statistic, z, failed ? "  FAIL" : ""));
+    }
+
+    /** Tests the frequencies of the characters at each position by a chi-square test against the model */
+    private void testPositions(Counters counters, double[] probabilities) {
+        for (int position = 0; position < this.length; ++position) {
+            double chiSquare = 0;
+            int binCount = 0;
+            // Rare characters are merged into a single bin
+            double rareExpected = 0, rareObserved = 0;
+            for (int character = 0; character < ALPHABET_SIZE; ++character) {
+                int index = position * ALPHABET_SIZE + character;
+                double expected = probabilities[index] * counters.passwordCount;
+                long observed = counters.characterCounts[index];
+                if (probabilities[index] == 0) {
+                    if (observed > 0) {
+                        this.report("position " + position + " impossible '" + (char) character + "'", observed,
+                                Double.POSITIVE_INFINITY);
+                    }
+                } else if (expected < MINIMUM_EXPECTED_COUNT) {
+                    rareExpected += expected;
+                    rareObserved += observed;
+                } else {
+                    chiSquare += (observed - expected) * (observed - expected) / expected;
+                    ++binCount;
+                }
+            }
+            if (rareExpected > 0) {
+                chiSquare += (rareObserved - rareExpected) * (rareObserved - rareExpected) / rareExpected;
+                ++binCount;
+            }
+            if (binCount > 1) {
+                this.report("position " + position + " chi-square", chiSquare, getChiSquareZ(chiSquare, binCount - 1));
+            }
+        }
+    }
+
+    /**
+     * Tests the frequency of each character over all positions against the model. The standard deviation of the sum
+     * of the per-position counts is at most the sum of their standard deviations, whatever their correlation.
+     */
+    private void testCharacters(Counters counters, double[] probabilities) {
+        double maximumZ = 0;
+        for (int character = 0; character < ALPHABET_SIZE; ++character) {
+            double expected = 0, deviation = 0;
+            long observed = 0;
+            for (int position = 0; position < this.length; ++position) {
+                double probability = probabilities[position * ALPHABET_SIZE + character];
+                expected += probability * counters.passwordCount;
+                deviation += Math.sqrt(probability * (1 - probability) * counters.passwordCount);
+                observed += counters.characterCounts[position * ALPHABET_SIZE + character];
+            }
+            if (deviation == 0) {
+                continue;
+            }
+            double z = (observed - expected) / deviation;
+            if (Math.abs(z) > this.threshold) {
+                this.report("character '" + (char) character + "' frequency", observed / expected, z);
+            }
+            maximumZ = Math.max(maximumZ, Math.abs(z));
+        }
+        this.report("characters max |z|", maximumZ, maximumZ);
+    }
+
+    /** Tests that the same position of consecutive passwords is uncorrelated */
+    private void testSerialCorrelation(Counters counters) {
+        for (int position = 0; position < this.length; ++position) {
+            double correlation = getCorrelation(counters.serialSums, position, counters.serialPairCount);
+            if (!Double.isNaN(correlation)) {
+                this.report("position " + position + " serial correlation", correlation,
+                        correlation * Math.sqrt(counters.serialPairCount));
+            }
+        }
+    }
+
+    /**
+     * Tests the correlation of adjacent positions of a password against the model. The standard deviation of the
+     * sample correlation is about (1 - r^2) / sqrt(n).
+     */
+    private void testAdjacentCorrelation(Counters counters) {
+        for (int position = 0; position + 1 < this.length; ++position) {
+            double expected = this.model.getAdjacentCorrelation(position);
+            double correlation = getCorrelation(counters.adjacentSums, position, counters.passwordCount);
+            if (Double.isNaN(expected) || Double.isNaN(correlation)) {
+                continue;
+            }
+            this.report("positions " + position + "," + (position + 1) + " correlation", correlation,
+                    (correlation - expected) * Math.sqrt(counters.passwordCount) / (1 - expected * expected));
+        }
+    }
+
+    /** Converts a chi-square statistic into a standard normal z-score by the approximation of Wilson and Hilferty */
+    private static double getChiSquareZ(double chiSquare, int degreesOfFreedom) {
+        double variance = 2.0 / (9 * degreesOfFreedom);
+        return (Math.cbrt(chiSquare / degreesOfFreedom) - (1 - variance)) / Math.sqrt(variance);
+    }
+
+    /** The exact distribution of the passwords of a factory configuration */
+    private abstract static class Model {
+        /** Returns the probability of each character at each position, indexed like Counters.characterCounts */
+        abstract double[] getCharacterProbabilities();
+
+        /** Returns the correlation between the given position and the next one, or NaN if it is unknown */
+        double getAdjacentCorrelation(int position) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Random passwords are uniform over the admissable passwords, i.e., the strings over the admissable characters
+     * that include all required classes. For a set S of required classes, let f(S) be the fraction of the admissable
+     * characters that belong to none of them. By inclusion-exclusion, the fraction of all strings of length n that are
+     * admissable is the sum over all S of (-1)^|S| f(S)^n, and the fraction of those with given characters at given k
+     * positions is the same sum over the S that leave out these characters, times f(S)^(n - k) / count^k.
+     */
+    private static class RandomModel extends Model {
+        private final int length;
+        private final char[] admissable;
+        private final int[] requiredClasses;
+        /** f(S) for each set of required classes S, as a bitmask over the indices of requiredClasses */
+        private final double[] otherFractions;
+        private final double admissableFraction;
+        private final double correlation;
+
+        RandomModel(TriValueBoolean[] options, int length) {
+            this.length = length;
+            StringBuilder pool = new StringBuilder(PasswordFactory.pw_lowers);
+            List<Integer> required = new ArrayList<Integer>();
+            if (options[2] == TriValueBoolean.MUST) {
+                pool.append(PasswordFactory.pw_digits);
+            }
+            if (options[1] == TriValueBoolean.MUST) {
+                pool.append(PasswordFactory.pw_uppers);
+                required.add(PasswordFactory.CLASS_UPPERCASE);
+            }
+            if (options[2] == TriValueBoolean.MUST) {
+                required.add(PasswordFactory.CLASS_DIGIT);
+            }
+            if (options[3] == TriValueBoolean.MUST) {
+                pool.append(PasswordFactory.pw_symbols);
+                required.add(PasswordFactory.CLASS_SYMBOL);
+            }
+            this.admissable = filter(pool.toString(), options[4] == TriValueBoolean.MUSTNOT,
+                    options[5] == TriValueBoolean.MUSTNOT);
+            this.requiredClasses = new int[required.size()];
+            for (int i = 0; i < this.requiredClasses.length; ++i) {
+                this.requiredClasses[i] = required.get(i);
+            }
+
+            this.otherFractions = new double[1 << this.requiredClasses.length];
+            for (int set = 0; set < this.otherFractions.length; ++set) {
+                int count = 0;
+                for (char character : this.admissable) {
+                    if (this.isOutside(character, set)) {
+                        ++count;
+                    }
+                }
+                this.otherFractions[set] = (double) count / this.admissable.length;
+            }
+            this.admissableFraction = this.getFraction(-1, -1, 0);
+            this.correlation = this.computeCorrelation();
+        }
+
+        /** Returns true if the character belongs to none of the required classes in set */
+        private boolean isOutside(char character, int set) {
+            for (int i = 0; i < this.requiredClasses.length; ++i) {
+                if ((set & (1 << i)) != 0 && PasswordFactory.isOfClass(character, this.requiredClasses[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Returns the fraction of strings that are admissable and have the given characters, -1 for none, fixed */
+        private double getFraction(int first, int second, int fixedCount) {
+            double returnValue = 0;
+            for (int set = 0; set < this.otherFractions.length; ++set) {
+                if ((first >= 0 && !this.isOutside((char) first, set))
+                        || (second >= 0 && !this.isOutside((char) second, set))) {
+                    continue;
+                }
+                double term = Math.pow(this.otherFractions[set], this.length - fixedCount)
+                        / Math.pow(this.admissable.length, fixedCount);
+                returnValue += (Integer.bitCount(set) % 2 == 0) ? term : -term;
+            }
+            return returnValue;
+        }
+
+        @Override
+        double[] getCharacterProbabilities() {
+            double[] returnValue = new double[this.length * ALPHABET_SIZE];
+            for (char character : this.admissable) {
+                double probability = this.getFraction(character, -1, 1) / this.admissableFraction;
+                for (int position = 0; position < this.length; ++position) {
+                    returnValue[position * ALPHABET_SIZE + character] = probability;
+                }
+            }
+            return returnValue;
+        }
+
+        /** All positions are exchangeable, so all adjacent positions have the same correlation */
+        private double computeCorrelation() {
+            if (this.length < 2) {
+                return Double.NaN;
+            }
+            double mean = 0, square = 0, product = 0;
+            for (char first : this.admissable) {
+                double probability = this.getFraction(first, -1, 1) / this.admissableFraction;
+                mean += probability * first;
+                square += probability * first * first;
+                for (char second : this.admissable) {
+                    product += this.getFraction(first, second, 2) / this.admissableFraction * first * second;
+                }
+            }
+            return (product - mean * mean) / (square - mean * mean);
+        }
+
+        @Override
+        double getAdjacentCorrelation(int position) {
+            return this.correlation;
+        }
+    }
+
+    /**
+     * Pronouncable passwords as a Markov chain. A state holds the kind of the next element, whether it is the first
+     * one, whether the previous element was a vowel and the required classes included so far. Each step appends an
+     * element, maybe capitalized, and then maybe a digit, which restarts the generation, or a symbol.
+     */
+    private static class ElementModel extends Model {
+        private static final int INCLUDED_CLASSES = PasswordFactory.CLASS_UPPERCASE | PasswordFactory.CLASS_DIGIT
+                | PasswordFactory.CLASS_SYMBOL;
+        private static final int AFTER_VOWEL = 1 << 6;
+        private static final int FIRST = 1 << 7;
+        private static final int CONSONANT = 1 << 8;
+        private static final int STATE_COUNT = 1 << 9;
+
+        private final PronouncablePasswordFactory.pwElement[] elements = PronouncablePasswordFactory.getElements();
+        private final int length;
+        private final boolean weighted;
+        private final boolean uppercase, digits, symbols;
+        private final String digitPool, symbolPool;
+        private final int requiredClasses;
+
+        /** The probability that a password continued from each state at each position is admissable */
+        private final double[] acceptance;
+
+        /** Receives the steps of the chain */
+        private abstract static class StepVisitor {
+            /**
+             * Visits a step that appends element, capitalized if uppercase, followed by a character of inserted, if
+             * not null. The next state is -1 if the password ends after the step.
+             */
+            abstract void visit(double probability, String element, boolean uppercase, String inserted,
+                    int nextPosition, int nextState, int includedClasses);
+        }
+
+        ElementModel(TriValueBoolean[] options, int length, boolean weighted) {
+            this.length = length;
+            this.weighted = weighted;
+            this.uppercase = options[1] == TriValueBoolean.MUST;
+            this.digits = options[2] == TriValueBoolean.MUST;
+            this.symbols = options[3] == TriValueBoolean.MUST;
+            boolean excludeAmbiguous = options[4] == TriValueBoolean.MUSTNOT;
+            this.digitPool = String.valueOf(filter(PasswordFactory.pw_digits, excludeAmbiguous, false));
+            this.symbolPool = String.valueOf(filter(PasswordFactory.pw_symbols, excludeAmbiguous, false));
+            this.requiredClasses = (this.uppercase ? PasswordFactory.CLASS_UPPERCASE : 0)
+                    | (this.digits ? PasswordFactory.CLASS_DIGIT : 0)
+                    | (this.symbols ? PasswordFactory.CLASS_SYMBOL : 0);
+
+            this.acceptance = new double[length * STATE_COUNT];
+            for (int position = length - 1; position >= 0; --position) {
+                for (int state = 0; state < STATE_COUNT; ++state) {
+                    final double[] sum = new double[1];
+                    this.visitSteps(position, state, new StepVisitor() {
+                        @Override
+                        void visit(double probability, String element, boolean uppercase, String inserted,
+                                int nextPosition, int nextState, int includedClasses) {
+                            sum[0] += probability * ElementModel.this.getAcceptance(nextPosition, nextState,
+                                    includedClasses);
+                        }
+                    });
+                    this.acceptance[position * STATE_COUNT + state] = sum[0];
+                }
+            }
+        }
+
+        private double getAcceptance(int position, int state, int includedClasses) {
+            if (state < 0) {
+                return (includedClasses & this.requiredClasses) == this.requiredClasses ? 1 : 0;
+            }
+            return this.acceptance[position * STATE_COUNT + state];
+        }
+
+        /** Mirrors isAdmissableElement of PronouncablePasswordFactory */
+        private static boolean isAdmissable(PronouncablePasswordFactory.pwElement element, boolean consonant,
+                boolean first, boolean afterVowel, int remainingLength) {
+            return element.isConsonant == consonant && !(first && element.notFirst)
+                    && !(afterVowel && !element.isConsonant && element.isDiphtong)
+                    && element.str.length() <= remainingLength;
+        }
+
+        private void visitSteps(int position, int state, StepVisitor visitor) {
+            boolean consonant = (state & CONSONANT) != 0;
+            boolean first = (state & FIRST) != 0;
+            boolean afterVowel = (state & AFTER_VOWEL) != 0;
+            int included = state & INCLUDED_CLASSES;
+
+            double totalWeight = 0;
+            for (PronouncablePasswordFactory.pwElement element : this.elements) {
+                if (isAdmissable(element, consonant, first, afterVowel, this.length - position)) {
+                    totalWeight += this.weighted ? element.weight : 1;
+                }
+            }
+
+            for (PronouncablePasswordFactory.pwElement element : this.elements) {
+                if (!isAdmissable(element, consonant, first, afterVowel, this.length - position)) {
+                    continue;
+                }
+                double elementProbability = (this.weighted ? element.weight : 1) / totalWeight;
+                boolean mayCapitalize = this.uppercase && (first || element.isConsonant);
+                for (int capitalized = 0; capitalized < (mayCapitalize ? 2 : 1); ++capitalized) {
+                    double probability = elementProbability;
+                    int elementIncluded = included;
+                    if (mayCapitalize) {
+                        probability *= (capitalized == 1) ? 0.2 : 0.8;
+                        elementIncluded |= (capitalized == 1) ? PasswordFactory.CLASS_UPPERCASE : 0;
+                    }
+                    this.visitInsertions(position, element, capitalized == 1, probability, first, consonant,
+                            afterVowel, elementIncluded, visitor);
+                }
+            }
+        }
+
+        private void visitInsertions(int position, PronouncablePasswordFactory.pwElement element, boolean capitalized,
+                double probability, boolean first, boolean consonant, boolean afterVowel, int included,
+                StepVisitor visitor) {
+            String str = element.str;
+            int next = position + str.length();
+            if (next >= this.length) {
+                visitor.visit(probability, str, capitalized, null, next, -1, included);
+                return;
+            }
+
+            if (this.digits && !first) {
+                // A digit restarts the generation with an element of either kind
+                int digitIncluded = included | PasswordFactory.CLASS_DIGIT;
+                for (int nextConsonant = 0; nextConsonant < 2; ++nextConsonant) {
+                    int nextState = (next + 1 >= this.length) ? -1 : digitIncluded | FIRST
+                            | (nextConsonant == 1 ? CONSONANT : 0);
+                    visitor.visit(probability * 0.3 * 0.5, str, capitalized, this.digitPool, next + 1, nextState,
+                            digitIncluded);
+                }
+                probability *= 0.7;
+            }
+
+            double consonantProbability;
+            if (consonant) {
+                consonantProbability = 0;
+            } else if (afterVowel || element.isDiphtong) {
+                consonantProbability = 1;
+            } else {
+                consonantProbability = 0.3;
+            }
+            boolean mayInsertSymbol = this.symbols && !first;
+            for (int symbol = 0; symbol < (mayInsertSymbol ? 2 : 1); ++symbol) {
+                double symbolProbability = probability;
+                int symbolIncluded = included;
+                if (mayInsertSymbol) {
+                    symbolProbability *= (symbol == 1) ? 0.2 : 0.8;
+                    symbolIncluded |= (symbol == 1) ? PasswordFactory.CLASS_SYMBOL : 0;
+                }
+                String inserted = (symbol == 1) ? this.symbolPool : null;
+                int symbolNext = next + symbol;
+                if (symbolNext >= this.length) {
+                    visitor.visit(symbolProbability, str, capitalized, inserted, symbolNext, -1, symbolIncluded);
+                    continue;
+                }
+                int nextState = symbolIncluded | (element.isConsonant ? 0 : AFTER_VOWEL);
+                if (consonantProbability > 0) {
+                    visitor.visit(symbolProbability * consonantProbability, str, capitalized, inserted, symbolNext,
+                            nextState | CONSONANT, symbolIncluded);
+                }
+                if (consonantProbability < 1) {
+                    visitor.visit(symbolProbability * (1 - consonantProbability), str, capitalized, inserted,
+                            symbolNext, nextState, symbolIncluded);
+                }
+            }
+        }
+
+        @Override
+        double[] getCharacterProbabilities() {
+            if (this.length == 0) {
+                return new double[0];
+            }
+            // The probability of reaching each state at each position, regardless of whether the password is admissable
+            final double[] reach = new double[this.length * STATE_COUNT];
+            reach[FIRST] = 0.5;
+            reach[FIRST | CONSONANT] = 0.5;
+            final double admissable = 0.5 * this.acceptance[FIRST] + 0.5 * this.acceptance[FIRST | CONSONANT];
+
+            final double[] returnValue = new double[this.length * ALPHABET_SIZE];
+            for (int position = 0; position < this.length; ++position) {
+                for (int state = 0; state < STATE_COUNT; ++state) {
+                    final double stateProbability = reach[position * STATE_COUNT + state];
+                    if (stateProbability == 0) {
+                        continue;
+                    }
+                    final int start = position;
+                    this.visitSteps(position, state, new StepVisitor() {
+                        @Override
+                        void visit(double probability, String element, boolean uppercase, String inserted,
+                                int nextPosition, int nextState, int includedClasses) {
+                            if (nextState >= 0) {
+                                reach[nextPosition * STATE_COUNT + nextState] += stateProbability * probability;
+                            }
+                            double mass = stateProbability * probability
+                                    * ElementModel.this.getAcceptance(nextPosition, nextState, includedClasses)
+                                    / admissable;
+                            for (int i = 0; i < element.length(); ++i) {
+                                char character = element.charAt(i);
+                                if (i == 0 && uppercase) {
+                                    character = Character.toUpperCase(character);
+                                }
+                                returnValue[(start + i) * ALPHABET_SIZE + character] += mass;
+                            }
+                            if (inserted != null) {
+                                int insertedPosition = start + element.length();
+                                for (int i = 0; i < inserted.length(); ++i) {
+                                    returnValue[insertedPosition * ALPHABET_SIZE + inserted.charAt(i)] += mass
+                                            / inserted.length();
+                                }
+                            }
+                        }
+                    });
+                }
+            }
+            return returnValue;
+        }
+    }
+
+    /** Returns the characters of pool, without ambiguous characters or vowels if requested */
+    private static char[] filter(String pool, boolean excludeAmbiguous, boolean excludeVowels) {
+        StringBuilder returnValue = new StringBuilder();
+        for (int i = 0; i < pool.length(); ++i) {
+            char character = pool.charAt(i);
+            if ((excludeAmbiguous && PasswordFactory.isOfClass(character, PasswordFactory.CLASS_AMBIGUOUS))
+                    || (excludeVowels && PasswordFactory.isOfClass(character, PasswordFactory.CLASS_VOWEL))) {
+                continue;
+            }
+            returnValue.append(character);
+        }
+        return returnValue.toString().toCharArray();
+    }
+
+    private static TriValueBoolean parseTriValueBoolean(String value) {
+        if (value.equals("must")) {
+            return TriValueBoolean.MUST;
+        } else if (value.equals("may")) {
+            return TriValueBoolean.MAY;
+        } else if (value.equals("mustnot")) {
+            return TriValueBoolean.MUSTNOT;
+        }
+        throw new IllegalArgumentException("Expected must, may or mustnot instead of " + value);
+    }
+
+    private static int getOptionIndex(String argument) {
+        for (int i = 0; i < PasswordFactoryBenchmark.OPTION_NAMES.length; ++i) {
+            if (argument.equals("-" + PasswordFactoryBenchmark.OPTION_NAMES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void exitWithUsage() {
+        System.err.println("Usage: PasswordQualityHarness [-factory random|pronouncable|trigram] "
+                + "[-mode rejection|singlepass] [-weighted] [-random splittable|java|secure] [-seed n] [-length n] "
+                + "[-samples n] [-threads n] [-threshold z] "
+                + "[-lowercase|-uppercase|-digits|-symbols|-ambiguous|-vowels must|may|mustnot]");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String factoryName = "random";
+        boolean singlePass = false;
+        boolean weighted = false;
+        String randomName = "splittable";
+        long seed = System.nanoTime();
+        int length = 8;
+        long samples = 100000000L;
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        double threshold = 5;
+        TriValueBoolean[] options = new TriValueBoolean[PasswordFactoryBenchmark.OPTION_NAMES.length];
+
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                int optionIndex = getOptionIndex(args[i]);
+                if (args[i].equals("-weighted")) {
+                    weighted = true;
+                } else if (i + 1 >= args.length) {
+                    exitWithUsage();
+                } else if (optionIndex >= 0) {
+                    options[optionIndex] = parseTriValueBoolean(args[++i]);
+                } else if (args[i].equals("-factory")) {
+                    factoryName = args[++i];
+                } else if (args[i].equals("-mode")) {
+                    singlePass = args[++i].equals("singlepass");
+                } else if (args[i].equals("-random")) {
+                    randomName = args[++i];
+                } else if (args[i].equals("-seed")) {
+                    seed = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-length")) {
+                    length = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-samples")) {
+                    samples = Long.parseLong(args[++i]);
+                } else if (args[i].equals("-threads")) {
+                    threadCount = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-threshold")) {
+                    threshold = Double.parseDouble(args[++i]);
+                } else {
+                    exitWithUsage();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            exitWithUsage();
+        }
+
+        IRandom random;
+        if (randomName.equals("java")) {
+            random = new RandomGenerator(seed);
+        } else if (randomName.equals("secure")) {
+            random = new SecureRandomGenerator();
+        } else {
+            random = new SplittableRandomGenerator(seed);
+        }
+        PasswordFactory.Builder builder = new PasswordFactory.Builder(random);
+        for (int i = 0; i < options.length; ++i) {
+            if (options[i] != null) {
+                PasswordFactoryBenchmark.configureOption(builder, i, options[i]);
+            }
+        }
+        if (singlePass) {
+            builder.satisfyInSinglePass();
+        }
+        Model model;
+        if (factoryName.equals("random")) {
+            builder.mightNotBePronouncable();
+            model = new RandomModel(options, length);
+        } else if (factoryName.equals("pronouncable")) {
+            builder.mustBePronouncable().useElements();
+            if (weighted) {
+                builder.weightElementsByFrequency();
+            }
+            model = new ElementModel(options, length, weighted);
+        } else if (factoryName.equals("trigram")) {
+            builder.mustBePronouncable().useTrigrams();
+            model = null;
+        } else {
+            exitWithUsage();
+            return;
+        }
+
+        PasswordQualityHarness harness = new PasswordQualityHarness(builder.create(), model, length, threshold);
+        long start = System.nanoTime();
+        Counters counters = harness.countInParallel(samples, threadCount);
+        System.out.println(String.format("%d passwords of length %d in %.1f s, seed %d", counters.passwordCount,
+                length, (System.nanoTime() - start) / 1e9, seed));
+        System.out.println(String.format("%-40s %14s %10s", "test", "statistic", "z"));
+
+        if (model != null) {
+            double[] probabilities = model.getCharacterProbabilities();
+            harness.testPositions(counters, probabilities);
+            harness.testCharacters(counters, probabilities);
+            harness.testAdjacentCorrelation(counters);
+        }
+        harness.testSerialCorrelation(counters);
+
+        if (harness.failureCount > 0) {
+            System.out.println(harness.failureCount + " tests failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+}
@@ -0,0 +1,379 @@
+package com.alexweinert.pwgen;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Finds passwords that contain any word of a blocklist, ignoring case.
+ *
+ * The words are compiled into an Aho-Corasick automaton, so that a password is scanned in time linear in its length,
+ * no matter how many words the list has. The automaton is stored in a few primitive arrays: Its states are numbered in
+ * breadth-first order, so that the children of each state have consecutive numbers and are sorted by their label.
+ * Scanning allocates nothing. Filters are immutable and may be shared between threads.
+ *
+ * Building the automaton sorts the words and computes the failure of every state, which takes seconds for lists of
+ * millions of words. The arrays can thus be saved to a file, from which map copies them back in a single pass over
+ * the memory-mapped file. They are copied rather than read from the mapping while scanning, as scanning arrays is
+ * considerably faster than scanning buffers.
+ */
+public class BlocklistFilter {
+
+    /** Number of characters the automaton distinguishes. Other characters never match a word */
+    private static final int ALPHABET_SIZE = 128;
+    /** The bit of a label that marks a state whose word ends with a blocked word */
+    private static final int MATCH = 0x80;
+    /** The bits of a label that hold its character */
+    private static final int CHARACTER_MASK = ALPHABET_SIZE - 1;
+    /** Number of words below which sort() switches to insertion sort */
+    private static final int INSERTION_SORT_SIZE = 16;
+    /** The first bytes of a saved filter. The first byte is not ASCII, so that no word list starts like this */
+    private static final int MAGIC = 0x89424c46;
+    private static final int VERSION = 1;
+    /** Length of the header of a saved filter, i.e., MAGIC, VERSION and the number of states */
+    private static final int HEADER_LENGTH = 12;
+
+    /** For each state, the first of its children. The children of state s are childStart[s] to childStart[s + 1] */
+    private final int[] childStart;
+    /**
+     * For each state except the initial state 0, the character of the transition into it. The sign bit is set if the
+     * word of the state ends with a blocked word, so that scanning reads a single array per character.
+     */
+    private final byte[] labels;
+    /** For each state, the state of the longest proper suffix of its word that is also a prefix of a word */
+    private final int[] failures;
+    /** For each character, the child of the initial state, which is the most frequent state, or 0 if there is none */
+    private final int[] initialTransitions = new int[ALPHABET_SIZE];
+
+    /** Builds a filter that finds the words of the given list */
+    public BlocklistFilter(WordList words) {
+        int wordCount = words.size();
+        int characterCount = 0;
+        int[] sortedWords = new int[wordCount];
+        for (int i = 0; i < wordCount; ++i) {
+            characterCount += words.getLength(i);
+            sortedWords[i] = i;
+        }
+        if (!isSorted(words)) {
+            sort(words, sortedWords, 0, wordCount, 0);
+        }
+
+        // Insert the words in lexicographic order. Each word then shares its path with the previous word up to their
+        // common prefix and only appends new states after that, so that no state ever has to search its children.
+        int capacity = characterCount + 1;
+        int[] trieParents = new int[capacity];
+        byte[] trieLabels = new byte[capacity];
+        byte[] depths = new byte[capacity];
+        boolean[] isWord = new boolean[capacity];
+        int[] path = new int[words.getMaximumLength() + 1];
+        int stateCount = 1;
+        int previous = -1;
+        for (int i = 0; i < wordCount; ++i) {
+            int word = sortedWords[i];
+            int length = words.getLength(word);
+            for (int j = (previous < 0) ? 0 : getCommonPrefixLength(words, previous, word); j < length; ++j) {
+                int state = stateCount++;
+                trieParents[state] = path[j];
+                trieLabels[state] = (byte) toLowerCase(words.getCharacter(word, j));
+                depths[state] = (byte) (j + 1);
+                path[j + 1] = state;
+            }
+            isWord[path[length]] = true;
+            previous = word;
+        }
+
+        // The states were created in lexicographic order of their words. Sorting them by depth, keeping that order
+        // among states of equal depth, yields a breadth-first order in which the children of each state are
+        // consecutive and sorted by their label.
+        int[] depthStart = new int[words.getMaximumLength() + 2];
+        for (int state = 0; state < stateCount; ++state) {
+            ++depthStart[depths[state] + 1];
+        }
+        for (int depth = 1; depth < depthStart.length; ++depth) {
+            depthStart[depth] += depthStart[depth - 1];
+        }
+        int[] numbers = new int[stateCount];
+        for (int state = 0; state < stateCount; ++state) {
+            numbers[state] = depthStart[depths[state]]++;
+        }
+        int[] parents = new int[stateCount];
+        this.labels = new byte[stateCount];
+        this.childStart = new int[stateCount + 1];
+        for (int state = 1; state < stateCount; ++state) {
+            int number = numbers[state];
+            parents[number] = numbers[trieParents[state]];
+            this.labels[number] = (isWord[state]) ? (byte) (trieLabels[state] | MATCH) : trieLabels[state];
+            ++this.childStart[parents[number] + 1];
+        }
+        this.childStart[0] = 1;
+        for (int state = 1; state <= stateCount; ++state) {
+            this.childStart[state] += this.childStart[state - 1];
+        }
+        this.setInitialTransitions();
+
+        // Parents come before their children, so the failures of shorter words are known when they are needed
+        this.failures = new int[stateCount];
+        for (int state = 1; state < stateCount; ++state) {
+            int parent = parents[state];
+            if (parent != 0) {
+                this.failures[state] = this.getNextState(this.failures[parent], this.labels[state] & CHARACTER_MASK);
+            }
+            this.labels[state] |= this.labels[this.failures[state]] & MATCH;
+        }
+    }
+
+    private BlocklistFilter(int[] childStart, byte[] labels, int[] failures) {
+        this.childStart = childStart;
+        this.labels = labels;
+        this.failures = failures;
+        this.setInitialTransitions();
+    }
+
+    private void setInitialTransitions() {
+        for (int child = this.childStart[0]; child < this.childStart[1]; ++child) {
+            this.initialTransitions[this.labels[child] & CHARACTER_MASK] = child;
+        }
+    }
+
+    /**
+     * Maps the given file, which holds either a filter saved by save or one word per line like a WordList. A saved
+     * filter is read back as it is, for a list of words a filter is built.
+     *
+     * @throws IOException
+     *             if the file cannot be read, is a damaged saved filter, or cannot be read as a WordList
+     */
+    public static BlocklistFilter map(File file) throws IOException {
+        ByteBuffer contents;
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be mapped");
+            }
+            // The mapping stays valid after the channel is closed
+            contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            stream.close();
+        }
+
+        if (contents.limit() < HEADER_LENGTH || contents.getInt(0) != MAGIC) {
+            return new BlocklistFilter(WordList.map(file));
+        }
+        if (contents.getInt(4) != VERSION) {
+            throw new IOException(file + " was saved by an unknown version");
+        }
+        long stateCount = contents.getInt(8);
+        if (stateCount < 1 || contents.limit() != HEADER_LENGTH + 4 * (2 * stateCount + 1) + stateCount) {
+            throw new IOException(file + " is not a complete saved filter");
+        }
+        int[] childStart = new int[(int) stateCount + 1];
+        int[] failures = new int[(int) stateCount];
+        byte[] labels = new byte[(int) stateCount];
+        contents.position(HEADER_LENGTH);
+        contents.asIntBuffer().get(childStart).get(failures);
+        contents.position(contents.limit() - labels.length);
+        contents.get(labels);
+        if (!isValid(childStart, failures)) {
+            throw new IOException(file + " is damaged");
+        }
+        return new BlocklistFilter(childStart, labels, failures);
+    }
+
+    /**
+     * Saves the automaton to the given file, so that map can read it back without building it again. The file is in
+     * big-endian byte order, like all of Java.
+     */
+    public void save(File file) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(this.labels.length);
+            for (int start : this.childStart) {
+                output.writeInt(start);
+            }
+            for (int failure : this.failures) {
+                output.writeInt(failure);
+            }
+            output.write(this.labels);
+        } finally {
+            output.close();
+        }
+    }
+
+    /** Returns true if the password stored in password[offset, offset + length) contains a blocked word */
+    public boolean isBlocked(char[] password, int offset, int length) {
+        int state = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            int character = toLowerCase(password[i]);
+            if (character >= ALPHABET_SIZE) {
+                state = 0;
+                continue;
+            }
+            state = this.getNextState(state, character);
+            if (this.labels[state] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the password stored in bytes[offset, offset + length) in ASCII contains a blocked word. Bytes
+     * outside of ASCII never match, so that UTF-8 need not be decoded.
+     */
+    public boolean isBlocked(ByteBuffer bytes, int offset, int length) {
+        int state = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            int character = bytes.get(i);
+            if (character < 0) {
+                state = 0;
+                continue;
+            }
+            state = this.getNextState(state, toLowerCase((char) character));
+            if (this.labels[state] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the number of states of the automaton */
+    public int getStateCount() {
+        return this.labels.length;
+    }
+
+    /** Returns the state after reading the given character in the given state, following failures where needed */
+    private int getNextState(int state, int character) {
+        while (state != 0) {
+            int child = this.getChild(state, character);
+            if (child >= 0) {
+                return child;
+            }
+            state = this.failures[state];
+        }
+        return this.initialTransitions[character];
+    }
+
+    /** Returns the child of state with the given label, or -1 if there is none */
+    private int getChild(int state, int label) {
+        int low = this.childStart[state], high = this.childStart[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleLabel = this.labels[middle] & CHARACTER_MASK;
+            if (middleLabel < label) {
+                low = middle + 1;
+            } else if (middleLabel > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the children of every state lie behind the initial state and the failure of every state lies
+     * before it, so that scanning a damaged file can neither read out of bounds nor follow failures forever
+     */
+    private static boolean isValid(int[] childStart, int[] failures) {
+        int stateCount = failures.length;
+        if (childStart[0] != 1 || childStart[stateCount] != stateCount || failures[0] != 0) {
+            return false;
+        }
+        for (int state = 1; state < stateCount; ++state) {
+            if (childStart[state] < childStart[state - 1] || childStart[state] > stateCount) {
+                return false;
+            }
+            if (failures[state] < 0 || failures[state] >= state) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true if the words are sorted, ignoring case, as many word lists are */
+    private static boolean isSorted(WordList words) {
+        for (int i = 1; i < words.size(); ++i) {
+            if (compare(words, i - 1, i, 0) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the words indices[low, high), which agree on their first depth characters, ignoring case. This is a
+     * multikey quicksort, which looks at each character only about once per partitioning step.
+     */
+    private static void sort(WordList words, int[] indices, int low, int high, int depth) {
+        while (high - low > INSERTION_SORT_SIZE) {
+            int pivot = getKey(words, indices[(low + high) >>> 1], depth);
+            int less = low, greater = high, i = low;
+            while (i < greater) {
+                int key = getKey(words, indices[i], depth);
+                if (key < pivot) {
+                    swap(indices, less++, i++);
+                } else if (key > pivot) {
+                    swap(indices, i, --greater);
+                } else {
+                    ++i;
+                }
+            }
+            sort(words, indices, low, less, depth);
+            sort(words, indices, greater, high, depth);
+            if (pivot < 0) {
+                // The words in the middle all end here and are equal
+                return;
+            }
+            low = less;
+            high = greater;
+            ++depth;
+        }
+        for (int i = low + 1; i < high; ++i) {
+            for (int j = i; j > low && compare(words, indices[j - 1], indices[j], depth) > 0; --j) {
+                swap(indices, j - 1, j);
+            }
+        }
+    }
+
+    /** Compares the given words from the given position on, ignoring case */
+    private static int compare(WordList words, int first, int second, int depth) {
+        while (true) {
+            int difference = getKey(words, first, depth) - getKey(words, second, depth);
+            if (difference != 0 || getKey(words, first, depth) < 0) {
+                return difference;
+            }
+            ++depth;
+        }
+    }
+
+    /** Returns the lowercase character at the given position of the given word, or -1 after its end */
+    private static int getKey(WordList words, int word, int position) {
+        return (position < words.getLength(word)) ? toLowerCase(words.getCharacter(word, position)) : -1;
+    }
+
+    private static int getCommonPrefixLength(WordList words, int first, int second) {
+        int returnValue = 0;
+        while (getKey(words, first, returnValue) >= 0
+                && getKey(words, first, returnValue) == getKey(words, second, returnValue)) {
+            ++returnValue;
+        }
+        return returnValue;
+    }
+
+    private static void swap(int[] values, int first, int second) {
+        int value = values[first];
+        values[first] = values[second];
+        values[second] = value;
+    }
+
+    private static int toLowerCase(char character) {
+        return (character >= 'A' && character <= 'Z') ? character + ('a' - 'A') : character;
+    }
+}
@@ -0,0 +1,54 @@
+package com.alexweinert.pwgen;
+
+/**
+ * Base class of generators that produce random 64-bit words, which are handed out a few bits at a time.
+ *
+ * A value from [0,max) consumes only as many random bits as are needed to represent max-1 and is drawn by rejection
+ * sampling, so it is not biased towards small values. A single word thus serves several small values, e.g., about six
+ * characters from a pool of 94, which matters most if words are expensive to produce. Instances are not thread-safe;
+ * use split() to obtain a generator for each thread.
+ */
+public abstract class BufferedRandomGenerator implements ISplittableRandom {
+
+    /** Random bits that have not been used yet, stored in the lowest bitsAvailable bits */
+    private long bits = 0;
+    /** Number of bits in bits that have not been used yet */
+    private int bitsAvailable = 0;
+
+    /** Returns 64 new random bits */
+    protected abstract long getRandomLong();
+
+    @Override
+    public int getRandomInt(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        int bitCount = 32 - Integer.numberOfLeadingZeros(max - 1);
+        int returnValue;
+        do {
+            returnValue = this.getRandomBits(bitCount);
+        } while (returnValue >= max);
+        return returnValue;
+    }
+
+    @Override
+    public int getRandomBits(int count) {
+        if (count < 0 || count > 31) {
+            throw new IllegalArgumentException("count must be from 0 to 31");
+        }
+        if (this.bitsAvailable >= count) {
+            int returnValue = (int) (this.bits & ((1L << count) - 1));
+            this.bits >>>= count;
+            this.bitsAvailable -= count;
+            return returnValue;
+        }
+
+        // Use up the remaining bits and take the missing ones from the next word
+        int missing = count - this.bitsAvailable;
+        long word = this.getRandomLong();
+        int returnValue = (int) (this.bits | ((word & ((1L << missing) - 1)) << this.bitsAvailable));
+        this.bits = word >>> missing;
+        this.bitsAvailable = 64 - missing;
+        return returnValue;
+    }
+}
@@ -0,0 +1,196 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates large numbers of passwords on several threads.
+ *
+ * The requested passwords are split into chunks of equal size, which are generated in parallel. Each chunk draws from
+ * its own random generator, split off from a root generator in chunk order, and the chunks are handed to the sink in
+ * order. Thus, a deterministic root generator yields the same passwords in the same order, no matter how many threads
+ * are used. At most two chunks per thread are held in memory at any time.
+ *
+ * The generateUnique methods additionally guarantee that no password is issued twice. They check each password against
+ * an IPasswordSet in chunk order on the calling thread and replace those that were issued before with new ones drawn
+ * from the generator of their chunk, so that they are just as deterministic.
+ */
+public class BulkPasswordGenerator {
+
+    /**
+     * The number of passwords drawn to replace an issued one before giving up, which only happens if almost all
+     * passwords have been issued, or if a Bloom filter is almost full
+     */
+    private static final int MAXIMUM_REPLACEMENTS = 1 << 16;
+
+    /** Default number of passwords per chunk */
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final PasswordFactory factory;
+    private final int threadCount;
+    private final int chunkSize;
+
+    /** Creates a generator that uses one thread per available processor */
+    public BulkPasswordGenerator(PasswordFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkPasswordGenerator(PasswordFactory factory, int threadCount) {
+        this(factory, threadCount, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkPasswordGenerator(PasswordFactory factory, int threadCount, int chunkSize) {
+        if (threadCount <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("The number of threads and the chunk size must be positive");
+        }
+        this.factory = factory;
+        this.threadCount = threadCount;
+        this.chunkSize = chunkSize;
+    }
+
+    /** Creates count passwords of the given length from a SecureRandomGenerator and passes them to the sink */
+    public void generate(long count, int length, IPasswordSink sink) {
+        this.generate(count, length, new SecureRandomGenerator(), sink);
+    }
+
+    /** Creates count passwords of the given length and passes them to the sink, always in the same order for a seed */
+    public void generate(long count, int length, long seed, IPasswordSink sink) {
+        this.generate(count, length, new SplittableRandomGenerator(seed), sink);
+    }
+
+    /**
+     * Creates count passwords of the given length and passes them to the sink. The sink is called from the calling
+     * thread only.
+     */
+    public void generate(long count, int length, ISplittableRandom random, IPasswordSink sink) {
+        this.generate(count, length, random, null, sink);
+    }
+
+    /**
+     * Creates count passwords of the given length that are not in issued from a SecureRandomGenerator, adds them to
+     * issued and passes them to the sink
+     */
+    public void generateUnique(long count, int length, IPasswordSet issued, IPasswordSink sink) {
+        this.generateUnique(count, length, new SecureRandomGenerator(), issued, sink);
+    }
+
+    /**
+     * Creates count passwords of the given length that are not in issued, adds them to issued and passes them to the
+     * sink, always in the same order for a seed and an initially empty set
+     */
+    public void generateUnique(long count, int length, long seed, IPasswordSet issued, IPasswordSink sink) {
+        this.generateUnique(count, length, new SplittableRandomGenerator(seed), issued, sink);
+    }
+
+    /**
+     * Creates count passwords of the given length that are not in issued, adds them to issued and passes them to the
+     * sink. The set and the sink are called from the calling thread only.
+     *
+     * The number of passwords is checked against getPasswordCount of the factory, which does not subtract passwords
+     * that contain blocked words, and a Bloom filter may reject passwords that were never issued. Thus, a request that
+     * passes the check may still exhaust the passwords.
+     *
+     * @throws IllegalArgumentException
+     *             if the factory cannot create count different passwords of the given length besides those in issued
+     * @throws IllegalStateException
+     *             if no password that is not in issued is found in MAXIMUM_REPLACEMENTS attempts
+     */
+    public void generateUnique(long count, int length, ISplittableRandom random, IPasswordSet issued,
+            IPasswordSink sink) {
+        BigInteger required = BigInteger.valueOf(count).add(BigInteger.valueOf(issued.size()));
+        if (required.compareTo(this.factory.getPasswordCount(length)) > 0) {
+            throw new IllegalArgumentException("There are fewer than " + count + " different passwords of length "
+                    + length + " besides the " + issued.size() + " already issued");
+        }
+        this.generate(count, length, random, issued, sink);
+    }
+
+    /** Creates the passwords and, unless issued is null, replaces those in issued */
+    private void generate(long count, int length, ISplittableRandom random, IPasswordSet issued, IPasswordSink sink) {
+        ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+        try {
+            Queue<ChunkTask> pending = new ArrayDeque<ChunkTask>();
+            long submitted = 0;
+            long delivered = 0;
+            while (delivered < count) {
+                while (submitted < count && pending.size() < 2 * this.threadCount) {
+                    int chunkCount = (int) Math.min(this.chunkSize, count - submitted);
+                    ChunkTask task = new ChunkTask(random.split(), chunkCount, length);
+                    task.result = executor.submit(task);
+                    pending.add(task);
+                    submitted += chunkCount;
+                }
+
+                ChunkTask task = pending.remove();
+                PasswordBatch batch = this.await(task.result);
+                if (issued != null) {
+                    // The task is done, so its generator is free to draw the replacements
+                    batch = this.replaceIssuedPasswords(batch, task.random, length, issued);
+                }
+                sink.addPasswords(batch, delivered);
+                delivered += batch.size();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Replaces the passwords of batch that are in issued by new ones and adds all of them to issued */
+    private PasswordBatch replaceIssuedPasswords(PasswordBatch batch, IRandom random, int length,
+            IPasswordSet issued) {
+        for (int i = 0; i < batch.size(); ++i) {
+            int replacements = 0;
+            while (!issued.add(batch.getCharacters(), batch.getOffset(i), batch.getLength(i))) {
+                if (replacements++ == MAXIMUM_REPLACEMENTS) {
+                    throw new IllegalStateException("No password of length " + length + " that was not issued yet "
+                            + "found in " + MAXIMUM_REPLACEMENTS + " attempts");
+                }
+                PasswordBatch replacement = this.factory.getPasswords(random, 1, length);
+                batch = batch.replacePassword(i, replacement, 0);
+                replacement.wipe();
+            }
+        }
+        return batch;
+    }
+
+    private PasswordBatch await(Future<PasswordBatch> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating passwords", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Generates one chunk of passwords */
+    private class ChunkTask implements Callable<PasswordBatch> {
+        private final IRandom random;
+        private final int count;
+        private final int length;
+        /** The pending batch, set once the task is submitted */
+        private Future<PasswordBatch> result;
+
+        private ChunkTask(IRandom random, int count, int length) {
+            this.random = random;
+            this.count = count;
+            this.length = length;
+        }
+
+        @Override
+        public PasswordBatch call() {
+            return BulkPasswordGenerator.this.factory.getPasswords(this.random, this.count, this.length);
+        }
+    }
+}
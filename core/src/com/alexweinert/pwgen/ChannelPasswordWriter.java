@@ -0,0 +1,110 @@
+package com.alexweinert.pwgen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes passwords to a channel, one per line, encoded in UTF-8.
+ *
+ * The passwords are collected in a direct buffer of fixed size, which is written to the channel whenever it is full.
+ * Writing thus needs constant memory, no matter how many passwords are written.
+ */
+public class ChannelPasswordWriter implements IPasswordSink {
+
+    /** Default size of the buffer in bytes */
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /** Maximum number of bytes a single character is encoded to */
+    private static final int MAXIMUM_CHARACTER_BYTES = 4;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    public ChannelPasswordWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ChannelPasswordWriter(WritableByteChannel channel, int bufferSize) {
+        if (bufferSize < 2 * MAXIMUM_CHARACTER_BYTES) {
+            throw new IllegalArgumentException("The buffer must hold at least " + 2 * MAXIMUM_CHARACTER_BYTES
+                    + " bytes");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Writes all passwords of the batch and wipes it.
+     *
+     * @throws IllegalStateException
+     *             if the passwords cannot be written to the channel
+     */
+    @Override
+    public void addPasswords(PasswordBatch passwords, long firstIndex) {
+        try {
+            char[] characters = passwords.getCharacters();
+            for (int i = 0; i < passwords.size(); ++i) {
+                this.write(characters, passwords.getOffset(i), passwords.getLength(i));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write passwords", e);
+        } finally {
+            passwords.wipe();
+        }
+    }
+
+    /** Writes the password stored in characters[offset, offset + length) followed by a line break */
+    public void write(char[] characters, int offset, int length) throws IOException {
+        int end = offset + length;
+        for (int i = offset; i < end; ++i) {
+            if (this.buffer.remaining() < MAXIMUM_CHARACTER_BYTES) {
+                this.flush();
+            }
+            char character = characters[i];
+            if (character < 0x80) {
+                this.buffer.put((byte) character);
+            } else if (character < 0x800) {
+                this.buffer.put((byte) (0xC0 | (character >> 6)));
+                this.buffer.put((byte) (0x80 | (character & 0x3F)));
+            } else if (Character.isHighSurrogate(character) && i + 1 < end
+                    && Character.isLowSurrogate(characters[i + 1])) {
+                int codePoint = Character.toCodePoint(character, characters[++i]);
+                this.buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                this.buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                this.buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                this.buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                this.buffer.put((byte) (0xE0 | (character >> 12)));
+                this.buffer.put((byte) (0x80 | ((character >> 6) & 0x3F)));
+                this.buffer.put((byte) (0x80 | (character & 0x3F)));
+            }
+        }
+        if (!this.buffer.hasRemaining()) {
+            this.flush();
+        }
+        this.buffer.put((byte) '\n');
+    }
+
+    /** Writes all buffered passwords to the channel */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /** Writes all buffered passwords, overwrites the buffer and closes the channel */
+    public void close() throws IOException {
+        try {
+            this.flush();
+            while (this.buffer.hasRemaining()) {
+                this.buffer.put((byte) 0);
+            }
+            this.buffer.clear();
+        } finally {
+            this.channel.close();
+        }
+    }
+}
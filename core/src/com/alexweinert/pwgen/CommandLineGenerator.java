@@ -0,0 +1,332 @@
+package com.alexweinert.pwgen;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import com.alexweinert.pwgen.PasswordFactory.TriValueBoolean;
+
+/**
+ * Generates passwords from the command line, e.g., to pipe large numbers of passwords into other tools.
+ *
+ * Passwords are generated in parallel and streamed to the output through a fixed-size buffer, so memory use does not
+ * depend on the number of passwords.
+ */
+public class CommandLineGenerator {
+
+    private static final String USAGE = "Usage: CommandLineGenerator [options]\n"
+            + "  -count n                   number of passwords to generate (default: 1)\n"
+            + "  -length n                  length of each password (default: 8)\n"
+            + "  -output file               file to write to (default: standard output)\n"
+            + "  -pronouncable | -random    kind of password (default: pronouncable)\n"
+            + "  -trigrams                  build pronouncable passwords from trigrams of English words\n"
+            + "  -weighted                  pick pronouncable elements by their frequency in English\n"
+            + "  -wordlist file             passphrases of -length words from the file, one word per line\n"
+            + "  -blocklist file            reject passwords containing a word from the file, one word per line,\n"
+            + "                             or from a file written by -saveblocklist\n"
+            + "  -lowercase must|may|mustnot\n" //
+            + "  -uppercase must|may|mustnot\n" //
+            + "  -digits must|may|mustnot\n" //
+            + "  -symbols must|may|mustnot\n" //
+            + "  -ambiguous must|may|mustnot\n" //
+            + "  -vowels must|may|mustnot   which characters to include (default: may)\n"
+            + "  -singlepass                satisfy the must options without discarding passwords\n"
+            + "  -pool min:max:characters   random passwords with min to max of the characters, max empty for no\n"
+            + "                             limit; may be repeated, and replaces the options above\n"
+            + "  -unique exact|bloom        never repeat a password, remembering 10 bytes (exact) or 2 bytes (bloom)\n"
+            + "                             per password\n"
+            + "  -seed n                    reproducible, but not cryptographically strong, passwords\n"
+            + "  -threads n                 number of threads (default: number of processors)\n"
+            + "  -stream n                  instead of -count passwords, write a single one of n characters or words\n"
+            + "                             in constant memory, e.g., a long key\n"
+            + "  -audit file                instead of generating passwords, check those in the file, one per line,\n"
+            + "                             against the options or pools, with -length as the minimum length\n"
+            + "  -saveblocklist file        instead of generating passwords, save the filter built from -blocklist,\n"
+            + "                             which -blocklist then maps without building it again\n";
+
+    private long count = 1;
+    private int length = 8;
+    private String outputFile = null;
+    private String wordListFile = null;
+    private String blocklistFile = null;
+    private String savedBlocklistFile = null;
+    private BlocklistFilter blocklist = null;
+    private String uniqueness = null;
+    private String auditFile = null;
+    private Long streamLength = null;
+    private int poolCount = 0;
+    private Long seed = null;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    private final PasswordFactory.Builder builder;
+
+    private CommandLineGenerator() {
+        // The random generator of the factory is unused, BulkPasswordGenerator passes its own streams
+        this.builder = new PasswordFactory.Builder(new SecureRandomGenerator());
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; ++i) {
+            String option = args[i];
+            if (option.equals("-pronouncable")) {
+                this.builder.mustBePronouncable();
+            } else if (option.equals("-random")) {
+                this.builder.mightNotBePronouncable();
+            } else if (option.equals("-trigrams")) {
+                this.builder.useTrigrams();
+            } else if (option.equals("-weighted")) {
+                this.builder.weightElementsByFrequency();
+            } else if (option.equals("-singlepass")) {
+                this.builder.satisfyInSinglePass();
+            } else if (i + 1 < args.length) {
+                this.parseOption(option, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+        }
+        if (this.savedBlocklistFile != null && this.blocklistFile == null) {
+            throw new IllegalArgumentException("-saveblocklist requires -blocklist");
+        }
+    }
+
+    private void parseOption(String option, String value) {
+        if (option.equals("-count")) {
+            this.count = Long.parseLong(value);
+        } else if (option.equals("-length")) {
+            this.length = Integer.parseInt(value);
+        } else if (option.equals("-output")) {
+            this.outputFile = value;
+        } else if (option.equals("-wordlist")) {
+            this.wordListFile = value;
+        } else if (option.equals("-blocklist")) {
+            this.blocklistFile = value;
+        } else if (option.equals("-saveblocklist")) {
+            this.savedBlocklistFile = value;
+        } else if (option.equals("-unique")) {
+            if (!value.equals("exact") && !value.equals("bloom")) {
+                throw new IllegalArgumentException("Expected exact or bloom instead of " + value);
+            }
+            this.uniqueness = value;
+        } else if (option.equals("-pool")) {
+            this.parsePool(value);
+        } else if (option.equals("-stream")) {
+            this.streamLength = Long.valueOf(value);
+        } else if (option.equals("-audit")) {
+            this.auditFile = value;
+        } else if (option.equals("-seed")) {
+            this.seed = Long.valueOf(value);
+        } else if (option.equals("-threads")) {
+            this.threadCount = Integer.parseInt(value);
+        } else if (option.equals("-lowercase")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeLowercase();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeLowercase();
+            } else {
+                this.builder.mustNotIncludeLowercase();
+            }
+        } else if (option.equals("-uppercase")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeUppercase();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeUppercase();
+            } else {
+                this.builder.mustNotIncludeUppercase();
+            }
+        } else if (option.equals("-digits")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeDigits();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeDigits();
+            } else {
+                this.builder.mustNotIncludeDigits();
+            }
+        } else if (option.equals("-symbols")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeSymbols();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeSymbols();
+            } else {
+                this.builder.mustNotIncludeSymbols();
+            }
+        } else if (option.equals("-ambiguous")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeAmbiguous();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeAmbiguous();
+            } else {
+                this.builder.mustNotIncludeAmbiguous();
+            }
+        } else if (option.equals("-vowels")) {
+            TriValueBoolean include = parseTriValueBoolean(value);
+            if (include == TriValueBoolean.MUST) {
+                this.builder.mustIncludeVowels();
+            } else if (include == TriValueBoolean.MAY) {
+                this.builder.mayIncludeVowels();
+            } else {
+                this.builder.mustNotIncludeVowels();
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown option " + option);
+        }
+    }
+
+    private void parsePool(String value) {
+        String[] fields = value.split(":", 3);
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Expected min:max:characters instead of " + value);
+        }
+        int minimumCount = Integer.parseInt(fields[0]);
+        int maximumCount = fields[1].isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(fields[1]);
+        this.builder.addPool("pool" + ++this.poolCount, fields[2], minimumCount, maximumCount);
+    }
+
+    private static TriValueBoolean parseTriValueBoolean(String value) {
+        if (value.equals("must")) {
+            return TriValueBoolean.MUST;
+        } else if (value.equals("may")) {
+            return TriValueBoolean.MAY;
+        } else if (value.equals("mustnot")) {
+            return TriValueBoolean.MUSTNOT;
+        }
+        throw new IllegalArgumentException("Expected must, may or mustnot instead of " + value);
+    }
+
+    private void loadWordLists() throws IOException {
+        if (this.wordListFile != null) {
+            this.builder.usePassphrases(WordList.map(new File(this.wordListFile)));
+        }
+        if (this.blocklistFile != null) {
+            this.blocklist = BlocklistFilter.map(new File(this.blocklistFile));
+            this.builder.rejectBlockedWords(this.blocklist);
+        }
+    }
+
+    /** Returns the set that remembers issued passwords, or null if passwords may repeat */
+    private IPasswordSet createPasswordSet() {
+        if (this.uniqueness == null) {
+            return null;
+        } else if (this.uniqueness.equals("bloom")) {
+            return new PasswordBloomFilter(this.count, 16);
+        } else if (this.count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot remember more than " + Integer.MAX_VALUE + " passwords exactly");
+        }
+        return new PasswordFingerprintSet((int) this.count);
+    }
+
+    private FileChannel openOutput() throws IOException {
+        if (this.outputFile == null) {
+            return new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+        return new FileOutputStream(this.outputFile).getChannel();
+    }
+
+    private void run() throws IOException {
+        ChannelPasswordWriter writer = new ChannelPasswordWriter(this.openOutput());
+        try {
+            BulkPasswordGenerator generator = new BulkPasswordGenerator(this.builder.create(), this.threadCount);
+            IPasswordSet issued = this.createPasswordSet();
+            if (issued == null && this.seed == null) {
+                generator.generate(this.count, this.length, writer);
+            } else if (issued == null) {
+                generator.generate(this.count, this.length, this.seed.longValue(), writer);
+            } else if (this.seed == null) {
+                generator.generateUnique(this.count, this.length, issued, writer);
+            } else {
+                generator.generateUnique(this.count, this.length, this.seed.longValue(), issued, writer);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void stream() throws IOException {
+        if (this.seed != null || this.uniqueness != null) {
+            throw new IllegalArgumentException("-stream cannot be combined with -seed or -unique");
+        }
+        PasswordFactory factory = this.builder.create();
+        Writer writer = Channels.newWriter(this.openOutput(), "UTF-8");
+        try {
+            factory.writePassword(this.streamLength.longValue(), writer);
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void audit() throws IOException {
+        PasswordPolicyValidator validator = new PasswordPolicyValidator(this.builder.create(), this.length);
+        PasswordAudit audit = new PasswordDumpAuditor(validator, this.threadCount).audit(new File(this.auditFile));
+        System.out.println("passwords " + audit.getPasswordCount());
+        System.out.println("valid " + audit.getValidCount());
+        for (PasswordPolicyValidator.Violation violation : PasswordPolicyValidator.Violation.values()) {
+            if (audit.getViolationCount(violation) > 0) {
+                System.out.println(violation.name() + " " + audit.getViolationCount(violation));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        CommandLineGenerator commandLine = new CommandLineGenerator();
+        try {
+            commandLine.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+
+        try {
+            commandLine.loadWordLists();
+        } catch (IOException e) {
+            System.err.println("Could not read word list: " + e.getMessage());
+            System.exit(1);
+        }
+
+        if (commandLine.savedBlocklistFile != null) {
+            try {
+                commandLine.blocklist.save(new File(commandLine.savedBlocklistFile));
+            } catch (IOException e) {
+                System.err.println("Could not save blocklist: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        if (commandLine.auditFile != null) {
+            try {
+                commandLine.audit();
+            } catch (IOException e) {
+                System.err.println("Could not read passwords: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        try {
+            if (commandLine.streamLength != null) {
+                commandLine.stream();
+            } else {
+                commandLine.run();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write passwords: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage() + (e.getCause() != null ? ": " + e.getCause().getMessage() : ""));
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+}
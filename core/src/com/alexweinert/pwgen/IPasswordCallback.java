@@ -0,0 +1,7 @@
+package com.alexweinert.pwgen;
+
+/** Receives a password that is generated asynchronously, e.g., by a PasswordPrefetcher */
+public interface IPasswordCallback {
+    /** Called with the password, possibly on a background thread */
+    void onPassword(String password);
+}
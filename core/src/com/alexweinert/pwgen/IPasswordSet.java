@@ -0,0 +1,16 @@
+package com.alexweinert.pwgen;
+
+/** Remembers passwords, e.g., to ensure that a BulkPasswordGenerator never issues the same password twice */
+public interface IPasswordSet {
+    /**
+     * Adds the password stored in password[offset, offset + length) to this set. Returns false if the password may
+     * already be contained, in which case the set is unchanged, and true if it certainly was not.
+     *
+     * @throws IllegalStateException
+     *             if the password is not contained, but the set is full
+     */
+    boolean add(char[] password, int offset, int length);
+
+    /** Returns the number of passwords added to this set */
+    long size();
+}
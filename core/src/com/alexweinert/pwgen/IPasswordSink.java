@@ -0,0 +1,10 @@
+package com.alexweinert.pwgen;
+
+/** Receives the passwords created by a BulkPasswordGenerator */
+public interface IPasswordSink {
+    /**
+     * Called with consecutive batches of passwords, in order. firstIndex is the number of passwords that were passed
+     * to the sink before this batch. The batch may be wiped once this method returns.
+     */
+    void addPasswords(PasswordBatch passwords, long firstIndex);
+}
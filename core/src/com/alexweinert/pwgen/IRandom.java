@@ -0,0 +1,16 @@
+package com.alexweinert.pwgen;
+
+/**
+ * A source of random numbers for the password factories. Implementations that are shared between threads must be
+ * thread-safe; implementations of ISplittableRandom are instead split once per thread.
+ */
+public interface IRandom {
+    /** Returns a random value from the interval [0,max) */
+    int getRandomInt(int max);
+
+    /**
+     * Returns a random value from the interval [0,2^count), where count is from 0 to 31. Implementations should
+     * consume only count random bits, so that, e.g., a coin flip is much cheaper than a full random int.
+     */
+    int getRandomBits(int count);
+}
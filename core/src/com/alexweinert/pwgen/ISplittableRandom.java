@@ -0,0 +1,10 @@
+package com.alexweinert.pwgen;
+
+/** A random number generator from which independent generators can be split off, e.g., one per thread */
+public interface ISplittableRandom extends IRandom {
+    /**
+     * Returns a new generator whose values are independent of the values of this generator. If this generator is
+     * deterministic, so is the sequence of generators split off from it.
+     */
+    ISplittableRandom split();
+}
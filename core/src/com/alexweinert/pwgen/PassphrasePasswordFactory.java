@@ -0,0 +1,197 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+
+/**
+ * Creates Diceware-style passphrases of words picked uniformly from a WordList, separated by spaces. The length of a
+ * passphrase is its number of words.
+ *
+ * If the passphrase must include uppercase characters, the first letter of a random word is capitalized. If it must
+ * include digits or symbols, a random digit or symbol is appended to a random word. Words that contain characters of a
+ * class the passphrase must not include, i.e., lowercase or uppercase letters, digits or symbols, are skipped. Like
+ * pronouncable passwords, the words are not checked for ambiguous characters or vowels.
+ */
+public class PassphrasePasswordFactory extends PasswordFactory {
+
+    private final WordList wordList;
+
+    /** The character classes that words must not contain */
+    private final int excludedClasses;
+    /** The number of words in the list that contain none of the excluded classes */
+    private final int admissableWordCount;
+
+    public PassphrasePasswordFactory(IRandom randomGenerator, TriValueBoolean mayIncludeAmbiguous,
+            TriValueBoolean mayIncludeVowels, TriValueBoolean mustIncludeSymbols, TriValueBoolean mustIncludeDigits,
+            TriValueBoolean mustIncludeUppercase, TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics,
+            BlocklistFilter blocklist, WordList wordList) {
+        super(randomGenerator, mayIncludeAmbiguous, mayIncludeVowels, mustIncludeSymbols, mustIncludeDigits,
+                mustIncludeUppercase, includeLowercase, metrics, blocklist);
+        this.wordList = wordList;
+
+        int excludedClasses = 0;
+        if (this.includeLowercase == TriValueBoolean.MUSTNOT) {
+            excludedClasses |= CLASS_LOWERCASE;
+        }
+        if (this.includeUppercase == TriValueBoolean.MUSTNOT) {
+            excludedClasses |= CLASS_UPPERCASE;
+        }
+        if (this.includeDigits == TriValueBoolean.MUSTNOT) {
+            excludedClasses |= CLASS_DIGIT;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUSTNOT) {
+            excludedClasses |= CLASS_SYMBOL;
+        }
+        this.excludedClasses = excludedClasses;
+
+        this.admissableWordCount = this.countAdmissableWords();
+        if (this.admissableWordCount == 0) {
+            throw new IllegalArgumentException("No word of the list avoids the characters that passphrases must not "
+                    + "include");
+        }
+    }
+
+    private int countAdmissableWords() {
+        char[] word = new char[this.wordList.getMaximumLength()];
+        int returnValue = 0;
+        for (int i = 0; i < this.wordList.size(); ++i) {
+            int wordLength = this.wordList.getWord(i, word, 0);
+            if (!this.containsClass(word, 0, wordLength, this.excludedClasses)) {
+                ++returnValue;
+            }
+        }
+        return returnValue;
+    }
+
+    @Override
+    protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+        if (length <= 0) {
+            return 0;
+        }
+
+        int rejectedPasswords = 0;
+        int position;
+        boolean isAdmissable;
+        do {
+            int uppercaseWord = (this.includeUppercase == TriValueBoolean.MUST) ? random.getRandomInt(length) : -1;
+            int digitWord = (this.includeDigits == TriValueBoolean.MUST) ? random.getRandomInt(length) : -1;
+            int symbolWord = (this.includeSymbols == TriValueBoolean.MUST) ? random.getRandomInt(length) : -1;
+
+            position = offset;
+            for (int word = 0; word < length; ++word) {
+                if (word > 0) {
+                    destination[position++] = ' ';
+                }
+                int wordLength = this.getAdmissableWord(random, destination, position);
+                if (word == uppercaseWord) {
+                    destination[position] = Character.toUpperCase(destination[position]);
+                }
+                position += wordLength;
+                if (word == digitWord) {
+                    destination[position++] = this.getCharacter(random, pw_digits);
+                }
+                if (word == symbolWord) {
+                    destination[position++] = this.getCharacter(random, pw_symbols);
+                }
+            }
+
+            isAdmissable = this.isAdmissablePassword(destination, offset, position - offset);
+            if (!isAdmissable) {
+                ++rejectedPasswords;
+                this.checkRejectedPasswords(rejectedPasswords, length);
+            }
+        } while (!isAdmissable);
+        this.countRejectedPasswords(rejectedPasswords);
+
+        return position - offset;
+    }
+
+    /** Separates the segment from the preceding one by a space, as if it were one more word */
+    @Override
+    protected int generateSegment(IRandom random, char[] destination, long position, int length, long totalLength,
+            int missingClasses) {
+        if (position == 0) {
+            return this.generatePassword(random, destination, 0, length);
+        }
+        destination[0] = ' ';
+        return 1 + this.generatePassword(random, destination, 1, length);
+    }
+
+    /** Each word may be followed by a separator, a digit and a symbol */
+    @Override
+    protected int getMaximumPasswordLength(int length) {
+        return length * (this.wordList.getMaximumLength() + 3);
+    }
+
+    /**
+     * Copies a random word that only contains admissable characters into destination and returns its length. There is
+     * at least one such word, so this terminates.
+     */
+    private int getAdmissableWord(IRandom random, char[] destination, int offset) {
+        int returnValue;
+        while (true) {
+            returnValue = this.wordList.getWord(random.getRandomInt(this.wordList.size()), destination, offset);
+            if (!this.containsClass(destination, offset, returnValue, this.excludedClasses)) {
+                return returnValue;
+            }
+            this.countRejectedCharacter();
+        }
+    }
+
+    private boolean containsClass(char[] characters, int offset, int length, int characterClasses) {
+        if (characterClasses == 0) {
+            return false;
+        }
+        for (int i = offset; i < offset + length; ++i) {
+            if (isOfClass(characters[i], characterClasses)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private char getCharacter(IRandom random, String pool) {
+        char returnValue = pool.charAt(random.getRandomInt(pool.length()));
+        // If this may include ambiguous characters, one iteration is enough
+        while (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(returnValue, CLASS_AMBIGUOUS)) {
+            this.countRejectedCharacter();
+            returnValue = pool.charAt(random.getRandomInt(pool.length()));
+        }
+        return returnValue;
+    }
+
+    /**
+     * Counts the choices of words and decorations. This is the number of different passphrases if the words in the
+     * list are different and consist of lowercase letters only, and an upper bound otherwise.
+     */
+    @Override
+    protected BigInteger[] countPasswords(int maximumLength) {
+        BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+        returnValue[0] = BigInteger.ONE;
+        for (int length = 1; length <= maximumLength; ++length) {
+            BigInteger count = BigInteger.valueOf(this.admissableWordCount).pow(length);
+            BigInteger words = BigInteger.valueOf(length);
+            if (this.includeUppercase == TriValueBoolean.MUST) {
+                count = count.multiply(words);
+            }
+            if (this.includeDigits == TriValueBoolean.MUST) {
+                count = count.multiply(words).multiply(BigInteger.valueOf(this.getAdmissableCount(pw_digits)));
+            }
+            if (this.includeSymbols == TriValueBoolean.MUST) {
+                count = count.multiply(words).multiply(BigInteger.valueOf(this.getAdmissableCount(pw_symbols)));
+            }
+            returnValue[length] = count;
+        }
+        return returnValue;
+    }
+
+    /** Returns the number of characters from pool that getCharacter may return */
+    private int getAdmissableCount(String pool) {
+        int returnValue = 0;
+        for (int i = 0; i < pool.length(); ++i) {
+            if (this.includeAmbiguous != TriValueBoolean.MUSTNOT || !isOfClass(pool.charAt(i), CLASS_AMBIGUOUS)) {
+                ++returnValue;
+            }
+        }
+        return returnValue;
+    }
+}
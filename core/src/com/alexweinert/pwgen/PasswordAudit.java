@@ -0,0 +1,33 @@
+package com.alexweinert.pwgen;
+
+import com.alexweinert.pwgen.PasswordPolicyValidator.Violation;
+
+/** The result of checking a number of passwords against a PasswordPolicyValidator */
+public class PasswordAudit {
+
+    private final long passwordCount;
+    private final long validCount;
+    /** The number of passwords with each violation, indexed by its ordinal */
+    private final long[] violationCounts;
+
+    protected PasswordAudit(long passwordCount, long validCount, long[] violationCounts) {
+        this.passwordCount = passwordCount;
+        this.validCount = validCount;
+        this.violationCounts = violationCounts;
+    }
+
+    /** Returns the number of passwords that were checked */
+    public long getPasswordCount() {
+        return this.passwordCount;
+    }
+
+    /** Returns the number of passwords that satisfy the policy */
+    public long getValidCount() {
+        return this.validCount;
+    }
+
+    /** Returns the number of passwords with the given violation. A password may have several violations */
+    public long getViolationCount(Violation violation) {
+        return this.violationCounts[violation.ordinal()];
+    }
+}
@@ -0,0 +1,79 @@
+package com.alexweinert.pwgen;
+
+import java.util.Arrays;
+
+/**
+ * A number of passwords stored back to back in a single character array.
+ *
+ * Password i occupies the characters from getOffset(i) to getOffset(i + 1). Use getCharacters() to process the
+ * passwords without creating a String per password, and wipe() to overwrite them once they are no longer needed.
+ */
+public class PasswordBatch {
+
+    /** The characters of all passwords */
+    private final char[] characters;
+    /** The start of each password in characters, followed by the end of the last password */
+    private final int[] offsets;
+
+    protected PasswordBatch(char[] characters, int[] offsets) {
+        this.characters = characters;
+        this.offsets = offsets;
+    }
+
+    /** Returns the number of passwords in this batch */
+    public int size() {
+        return this.offsets.length - 1;
+    }
+
+    /** Returns the array that holds the characters of all passwords. Changes to the array change the batch */
+    public char[] getCharacters() {
+        return this.characters;
+    }
+
+    /** Returns the position of the first character of the given password in getCharacters() */
+    public int getOffset(int index) {
+        return this.offsets[index];
+    }
+
+    /** Returns the length of the given password */
+    public int getLength(int index) {
+        return this.offsets[index + 1] - this.offsets[index];
+    }
+
+    /** Returns the given password as a String */
+    public String getPassword(int index) {
+        return String.valueOf(this.characters, this.getOffset(index), this.getLength(index));
+    }
+
+    /**
+     * Replaces the given password by password sourceIndex of source. Returns this batch if both passwords have the same
+     * length, and otherwise a new batch, in which case this batch is wiped.
+     */
+    protected PasswordBatch replacePassword(int index, PasswordBatch source, int sourceIndex) {
+        int length = source.getLength(sourceIndex);
+        int start = this.getOffset(index);
+        if (length == this.getLength(index)) {
+            System.arraycopy(source.characters, source.getOffset(sourceIndex), this.characters, start, length);
+            return this;
+        }
+
+        int end = this.getOffset(index + 1);
+        int totalLength = this.getOffset(this.size());
+        int difference = length - (end - start);
+        char[] characters = new char[totalLength + difference];
+        System.arraycopy(this.characters, 0, characters, 0, start);
+        System.arraycopy(source.characters, source.getOffset(sourceIndex), characters, start, length);
+        System.arraycopy(this.characters, end, characters, start + length, totalLength - end);
+        int[] offsets = this.offsets.clone();
+        for (int i = index + 1; i < offsets.length; ++i) {
+            offsets[i] += difference;
+        }
+        this.wipe();
+        return new PasswordBatch(characters, offsets);
+    }
+
+    /** Overwrites all passwords in this batch */
+    public void wipe() {
+        Arrays.fill(this.characters, '\0');
+    }
+}
@@ -0,0 +1,64 @@
+package com.alexweinert.pwgen;
+
+/**
+ * A set of passwords that stores them in a Bloom filter, for runs in which even a PasswordFingerprintSet takes too much
+ * memory.
+ *
+ * Like any Bloom filter, this reports every password that was added before as contained, so that it still guarantees
+ * uniqueness, but it also reports some new passwords as contained. A BulkPasswordGenerator then just generates another
+ * password. When the filter is nearly full, this happens for about 4% of the new passwords with 8 bits per password and
+ * about 0.6% with 16 bits per password. The bits for each password are set in a single long, so that each password
+ * costs a single memory access. This filter is not thread-safe.
+ */
+public class PasswordBloomFilter implements IPasswordSet {
+
+    private final long[] words;
+    /** The number of bits set for each password */
+    private final int hashCount;
+    private final long capacity;
+    private long size = 0;
+
+    /** Creates an empty filter that holds up to capacity passwords in bitsPerPassword bits each */
+    public PasswordBloomFilter(long capacity, int bitsPerPassword) {
+        if (capacity <= 0 || bitsPerPassword <= 0) {
+            throw new IllegalArgumentException("The capacity and the bits per password must be positive");
+        }
+        long wordCount = (capacity * bitsPerPassword + Long.SIZE - 1) / Long.SIZE;
+        if (wordCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A filter of " + capacity
+                    + " passwords does not fit into a single array");
+        }
+        this.words = new long[(int) wordCount];
+        // Optimal for a classic Bloom filter, and 64 bits only provide ten hashes of six bits besides the index
+        this.hashCount = Math.max(1, Math.min(10, (int) Math.round(bitsPerPassword * Math.log(2))));
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean add(char[] password, int offset, int length) {
+        long fingerprint = PasswordFingerprintSet.getFingerprint(password, offset, length);
+        int word = PasswordFingerprintSet.getIndex(fingerprint, this.words.length);
+        // The upper half chose the word, so the bits are taken from the lower half, remixed to get more of them
+        long bits = (fingerprint & 0xffffffffL) * 0x9e3779b97f4a7c15L;
+        long mask = 0;
+        for (int i = 0; i < this.hashCount; ++i) {
+            // Shifting a long only uses the lowest six bits of the distance
+            mask |= 1L << (bits >>> (6 * i));
+        }
+        if ((this.words[word] & mask) == mask) {
+            return false;
+        }
+        if (this.size == this.capacity) {
+            throw new IllegalStateException("The filter already holds " + this.capacity + " passwords");
+        }
+        this.words[word] |= mask;
+        ++this.size;
+        return true;
+    }
+
+    /** Returns the number of passwords in this filter */
+    @Override
+    public long size() {
+        return this.size;
+    }
+}
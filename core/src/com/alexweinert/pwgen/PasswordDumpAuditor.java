@@ -0,0 +1,190 @@
+package com.alexweinert.pwgen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.alexweinert.pwgen.PasswordPolicyValidator.Violation;
+
+/**
+ * Checks all passwords in a file against a PasswordPolicyValidator, e.g., to audit a dump of existing passwords.
+ *
+ * The file holds one password per line in ASCII or UTF-8, with line breaks "\n" or "\r\n". It is memory-mapped in
+ * chunks of fixed size that end at line breaks, and each chunk is split into one slice per thread, which are checked
+ * in parallel. The lines are neither copied nor decoded, and only the slices of up to three chunks are pending at any
+ * time, so that memory use does not depend on the size of the file.
+ */
+public class PasswordDumpAuditor {
+
+    /** Default number of bytes per chunk */
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    /** Positions of the totals in the counts of a slice, followed by the count of each violation */
+    private static final int PASSWORDS = 0, VALID = 1, VIOLATIONS = 2;
+
+    private final PasswordPolicyValidator validator;
+    private final int threadCount;
+    private final int chunkSize;
+
+    /** Creates an auditor that uses one thread per available processor */
+    public PasswordDumpAuditor(PasswordPolicyValidator validator) {
+        this(validator, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public PasswordDumpAuditor(PasswordPolicyValidator validator, int threadCount) {
+        this(validator, threadCount, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PasswordDumpAuditor(PasswordPolicyValidator validator, int threadCount, int chunkSize) {
+        if (threadCount <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("The number of threads and the chunk size must be positive");
+        }
+        this.validator = validator;
+        this.threadCount = threadCount;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Checks every line of the given file
+     *
+     * @throws IOException
+     *             if the file cannot be read or has a line of 2 GB or more
+     */
+    public PasswordAudit audit(File file) throws IOException {
+        long[] counts = new long[VIOLATIONS + Violation.values().length];
+        ExecutorService executor = Executors.newFixedThreadPool(this.threadCount);
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            long size = channel.size();
+            Queue<Future<long[]>> pending = new ArrayDeque<Future<long[]>>();
+            long position = 0;
+            while (position < size) {
+                ByteBuffer chunk;
+                int chunkEnd;
+                long mapSize = this.chunkSize;
+                do {
+                    if (mapSize > Integer.MAX_VALUE) {
+                        throw new IOException("The line at byte " + position + " is too long");
+                    }
+                    chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(mapSize, size - position));
+                    chunkEnd = (position + chunk.limit() == size) ? chunk.limit() : getLineStart(chunk, chunk.limit());
+                    // A chunk without a line break ends in the middle of its only line, so try a larger one
+                    mapSize *= 2;
+                } while (chunkEnd == 0);
+
+                int sliceStart = 0;
+                for (int i = 1; i <= this.threadCount; ++i) {
+                    int sliceEnd = getLineStart(chunk, (int) ((long) chunkEnd * i / this.threadCount));
+                    if (i == this.threadCount) {
+                        sliceEnd = chunkEnd;
+                    }
+                    if (sliceEnd > sliceStart) {
+                        pending.add(executor.submit(new SliceTask(chunk, sliceStart, sliceEnd)));
+                        sliceStart = sliceEnd;
+                    }
+                }
+                while (pending.size() > 2 * this.threadCount) {
+                    add(counts, this.await(pending.remove()));
+                }
+                position += chunkEnd;
+            }
+            while (!pending.isEmpty()) {
+                add(counts, this.await(pending.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+            stream.close();
+        }
+
+        long[] violationCounts = new long[Violation.values().length];
+        System.arraycopy(counts, VIOLATIONS, violationCounts, 0, violationCounts.length);
+        return new PasswordAudit(counts[PASSWORDS], counts[VALID], violationCounts);
+    }
+
+    /** Returns the start of the line that contains the byte before end, or 0 if that is the first line */
+    private static int getLineStart(ByteBuffer bytes, int end) {
+        int returnValue = end;
+        while (returnValue > 0 && bytes.get(returnValue - 1) != '\n') {
+            --returnValue;
+        }
+        return returnValue;
+    }
+
+    private static void add(long[] sums, long[] counts) {
+        for (int i = 0; i < sums.length; ++i) {
+            sums[i] += counts[i];
+        }
+    }
+
+    private long[] await(Future<long[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking passwords", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Checks the lines of one slice of a chunk and counts the results */
+    private class SliceTask implements Callable<long[]> {
+        private final ByteBuffer chunk;
+        private final int start;
+        private final int end;
+
+        private SliceTask(ByteBuffer chunk, int start, int end) {
+            this.chunk = chunk;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public long[] call() {
+            long[] returnValue = new long[VIOLATIONS + Violation.values().length];
+            int lineStart = this.start;
+            for (int i = this.start; i < this.end; ++i) {
+                if (this.chunk.get(i) == '\n') {
+                    this.check(lineStart, i, returnValue);
+                    lineStart = i + 1;
+                }
+            }
+            // The last line of the file need not end with a line break
+            if (lineStart < this.end) {
+                this.check(lineStart, this.end, returnValue);
+            }
+            return returnValue;
+        }
+
+        private void check(int lineStart, int lineEnd, long[] counts) {
+            if (lineEnd > lineStart && this.chunk.get(lineEnd - 1) == '\r') {
+                --lineEnd;
+            }
+            // Absolute reads do not change the buffer, so all slices of a chunk may read it at once
+            int violations = PasswordDumpAuditor.this.validator.getViolations(this.chunk, lineStart, lineEnd
+                    - lineStart);
+            ++counts[PASSWORDS];
+            if (violations == 0) {
+                ++counts[VALID];
+            }
+            while (violations != 0) {
+                ++counts[VIOLATIONS + Integer.numberOfTrailingZeros(violations)];
+                violations &= violations - 1;
+            }
+        }
+    }
+}
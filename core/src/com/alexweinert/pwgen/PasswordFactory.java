@@ -0,0 +1,761 @@
+package com.alexweinert.pwgen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Creates passwords according to the options set in its Builder.
+ *
+ * Factories are immutable and may be shared between threads. If the random number generator passed to the Builder is
+ * an ISplittableRandom, each thread draws from its own stream split off from it, so that threads do not contend on a
+ * shared generator. Any other IRandom is shared by all threads and must thus be thread-safe itself.
+ *
+ * The factories only depend on the JVM, not on Android, so that they can be used by other applications as well. Each
+ * subclass can also be constructed directly instead of by the Builder.
+ */
+public abstract class PasswordFactory {
+    /** Whether passwords must, may or must not include a class of characters. null is treated like MAY */
+    public enum TriValueBoolean {
+        MUST, MAY, MUSTNOT
+    }
+
+    /** The random number generator used for picking random characters from a pool, or to split streams off from */
+    private final IRandom randomGenerator;
+    /** The random number generator used by the current thread */
+    private final ThreadLocal<IRandom> threadRandomGenerator = new ThreadLocal<IRandom>() {
+        @Override
+        protected IRandom initialValue() {
+            return PasswordFactory.this.createThreadRandomGenerator();
+        }
+    };
+
+    /** True if the generated password may include ambiguous characters */
+    protected final TriValueBoolean includeAmbiguous;
+
+    /** True if the generated password may include vowels */
+    protected final TriValueBoolean includeVowels;
+
+    /** True if the generated password must include symbols */
+    protected final TriValueBoolean includeSymbols;
+    /** True if the generated password must include digits */
+    protected final TriValueBoolean includeDigits;
+    /** True if the generated password must include uppercase characters */
+    protected final TriValueBoolean includeUppercase;
+    protected final TriValueBoolean includeLowercase;
+
+    /** Pool from which to pick digits */
+    protected static final String pw_digits = "0123456789";
+    /** Pool from which to pick uppercase characters */
+    protected static final String pw_uppers = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    /** Pool from which to pick lowercase characters */
+    protected static final String pw_lowers = "abcdefghijklmnopqrstuvwxyz";
+    /** Pool from which to pick symbols */
+    protected static final String pw_symbols = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+    /** Pool from which to pick ambiguous characters */
+    protected static final String pw_ambiguous = "B8G6I1l0OQDS5Z2";
+    /** Pool from which to pick vowels */
+    protected static final String pw_vowels = "01aeiouyAEIOUY";
+
+    /** Character class of the characters in pw_uppers */
+    protected static final int CLASS_UPPERCASE = 1;
+    /** Character class of the characters in pw_lowers */
+    protected static final int CLASS_LOWERCASE = 1 << 1;
+    /** Character class of the characters in pw_digits */
+    protected static final int CLASS_DIGIT = 1 << 2;
+    /** Character class of the characters in pw_symbols */
+    protected static final int CLASS_SYMBOL = 1 << 3;
+    /** Character class of the characters in pw_ambiguous */
+    protected static final int CLASS_AMBIGUOUS = 1 << 4;
+    /** Character class of the characters in pw_vowels */
+    protected static final int CLASS_VOWEL = 1 << 5;
+
+    /**
+     * Bitmask of the character classes of each ASCII character, indexed by the character. All pools only contain
+     * ASCII characters, so every other character belongs to no class.
+     */
+    private static final byte[] characterClasses = createCharacterClasses();
+
+    /** The maximum number of units, i.e., characters or words, writePassword generates at once */
+    protected static final int SEGMENT_LENGTH = 4096;
+    /**
+     * The number of passwords generatePassword discards at most before it gives up, e.g., because the blocklist blocks
+     * every password
+     */
+    protected static final int MAXIMUM_REJECTIONS = 1 << 16;
+
+    /** Collects what this factory does, or null if no metrics are collected */
+    private final PasswordFactoryMetrics metrics;
+
+    /** Rejects passwords that contain blocked words, or null if no words are blocked */
+    private final BlocklistFilter blocklist;
+
+    /** Cache of countPasswords, i.e., the number of different passwords of each length up to some maximum length */
+    private volatile BigInteger[] passwordCounts = new BigInteger[0];
+    /** The entropy of each length in passwordCounts in bits */
+    private volatile double[] entropies = new double[0];
+
+    protected PasswordFactory(IRandom randomGenerator, TriValueBoolean includeAmbiguous, TriValueBoolean includeVowels,
+            TriValueBoolean includeSymbols, TriValueBoolean includeDigits, TriValueBoolean includeUppercase,
+            TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics, BlocklistFilter blocklist) {
+        this.randomGenerator = randomGenerator;
+        this.metrics = metrics;
+        this.blocklist = blocklist;
+        this.includeAmbiguous = includeAmbiguous;
+        this.includeVowels = includeVowels;
+        this.includeSymbols = includeSymbols;
+        this.includeDigits = includeDigits;
+        this.includeUppercase = includeUppercase;
+        this.includeLowercase = includeLowercase;
+    }
+
+    public static class Builder {
+        private IRandom randomGenerator;
+
+        private TriValueBoolean includeLowercase;
+        private TriValueBoolean includeUppercase;
+
+        private TriValueBoolean includeAmbiguous;
+        private TriValueBoolean includeVowels;
+
+        private TriValueBoolean includeSymbols;
+        private TriValueBoolean includeDigits;
+
+        private boolean mustBePronouncable = true;
+
+        private boolean useTrigrams = false;
+
+        private boolean weightElements = false;
+
+        private WordList wordList = null;
+
+        private boolean satisfyInSinglePass = false;
+
+        private PasswordFactoryMetrics metrics = null;
+
+        private BlocklistFilter blocklist = null;
+
+        private final PasswordPolicy.Builder pools = new PasswordPolicy.Builder();
+
+        public Builder(IRandom randomGenerator) {
+            this.randomGenerator = randomGenerator;
+        }
+
+        public PasswordFactory create() {
+            PasswordFactory returnValue;
+            if (!this.pools.isEmpty()) {
+                returnValue = new PolicyPasswordFactory(this.randomGenerator, this.includeAmbiguous,
+                        this.includeVowels, this.includeSymbols, this.includeDigits, this.includeUppercase,
+                        this.includeLowercase, this.metrics, this.blocklist, this.pools.compile());
+            } else if (this.wordList != null) {
+                returnValue = new PassphrasePasswordFactory(this.randomGenerator, this.includeAmbiguous,
+                        this.includeVowels, this.includeSymbols, this.includeDigits, this.includeUppercase,
+                        this.includeLowercase, this.metrics, this.blocklist, this.wordList);
+            } else if (this.mustBePronouncable && this.useTrigrams) {
+                returnValue = new TrigramPasswordFactory(this.randomGenerator, this.includeAmbiguous,
+                        this.includeVowels, this.includeSymbols, this.includeDigits, this.includeUppercase,
+                        this.includeLowercase, this.metrics, this.blocklist);
+            } else if (this.mustBePronouncable) {
+                returnValue = new PronouncablePasswordFactory(this.randomGenerator, this.includeAmbiguous,
+                        this.includeVowels, this.includeSymbols, this.includeDigits, this.includeUppercase,
+                        this.includeLowercase, this.metrics, this.blocklist, this.weightElements);
+            } else {
+                returnValue = new RandomPasswordFactory(this.randomGenerator, this.includeAmbiguous,
+                        this.includeVowels, this.includeSymbols, this.includeDigits, this.includeUppercase,
+                        this.includeLowercase, this.metrics, this.blocklist, this.satisfyInSinglePass);
+            }
+
+            return returnValue;
+        }
+
+        public Builder mustIncludeLowercase() {
+            this.includeLowercase = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeLowercase() {
+            this.includeLowercase = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeLowercase() {
+            this.includeLowercase = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustIncludeUppercase() {
+            this.includeUppercase = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeUppercase() {
+            this.includeUppercase = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeUppercase() {
+            this.includeUppercase = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustIncludeAmbiguous() {
+            this.includeAmbiguous = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeAmbiguous() {
+            this.includeAmbiguous = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeAmbiguous() {
+            this.includeAmbiguous = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustIncludeVowels() {
+            this.includeVowels = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeVowels() {
+            this.includeVowels = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeVowels() {
+            this.includeVowels = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustIncludeSymbols() {
+            this.includeSymbols = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeSymbols() {
+            this.includeSymbols = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeSymbols() {
+            this.includeSymbols = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustIncludeDigits() {
+            this.includeDigits = TriValueBoolean.MUST;
+            return this;
+        }
+
+        public Builder mayIncludeDigits() {
+            this.includeDigits = TriValueBoolean.MAY;
+            return this;
+        }
+
+        public Builder mustNotIncludeDigits() {
+            this.includeDigits = TriValueBoolean.MUSTNOT;
+            return this;
+        }
+
+        public Builder mustBePronouncable() {
+            this.mustBePronouncable = true;
+            return this;
+        }
+
+        public Builder mightNotBePronouncable() {
+            this.mustBePronouncable = false;
+            return this;
+        }
+
+        /**
+         * Builds pronouncable passwords letter by letter from the frequencies of trigrams in English words instead of
+         * alternating consonant and vowel elements. Only supported by pronouncable passwords.
+         */
+        public Builder useTrigrams() {
+            this.useTrigrams = true;
+            return this;
+        }
+
+        public Builder useElements() {
+            this.useTrigrams = false;
+            return this;
+        }
+
+        /**
+         * Picks the elements of pronouncable passwords by their frequency in English instead of uniformly, so that
+         * rare elements like "qu" appear less often. Only supported by pronouncable passwords built from elements.
+         */
+        public Builder weightElementsByFrequency() {
+            this.weightElements = true;
+            return this;
+        }
+
+        public Builder weightElementsUniformly() {
+            this.weightElements = false;
+            return this;
+        }
+
+        /**
+         * Builds passphrases of words from the given list instead of passwords, or passwords again if wordList is
+         * null. The length of a passphrase is its number of words.
+         */
+        public Builder usePassphrases(WordList wordList) {
+            this.wordList = wordList;
+            return this;
+        }
+
+        /**
+         * Builds passwords that satisfy the MUST options in a single pass instead of discarding passwords until one
+         * does. The distribution of the passwords stays the same. Only supported by non-pronouncable passwords.
+         */
+        public Builder satisfyInSinglePass() {
+            this.satisfyInSinglePass = true;
+            return this;
+        }
+
+        public Builder satisfyByRejection() {
+            this.satisfyInSinglePass = false;
+            return this;
+        }
+
+        /**
+         * Discards passwords that contain a word of the given blocklist, ignoring case, or no passwords if blocklist
+         * is null. The passwords are still distributed uniformly over the remaining ones, but getPasswordCount does
+         * not subtract the discarded ones.
+         */
+        public Builder rejectBlockedWords(BlocklistFilter blocklist) {
+            this.blocklist = blocklist;
+            return this;
+        }
+
+        /**
+         * Adds a pool of characters, of which passwords must contain at least minimumCount and at most maximumCount,
+         * see PasswordPolicy. Once a pool is added, the factory creates random passwords from the pools alone, and all
+         * other options except for metrics and the blocklist are ignored.
+         */
+        public Builder addPool(String name, String characters, int minimumCount, int maximumCount) {
+            this.pools.addPool(name, characters, minimumCount, maximumCount);
+            return this;
+        }
+
+        /** Counts generated and rejected passwords, random draws and latencies in the given metrics */
+        public Builder collectMetrics(PasswordFactoryMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+    }
+
+    public String getPassword(int length) {
+        char[] password = new char[this.getMaximumPasswordLength(length)];
+        int passwordLength = this.generateMeasuredPassword(this.getRandomGenerator(), password, 0, length);
+        return String.valueOf(password, 0, passwordLength);
+    }
+
+    /**
+     * Writes a password of the given length into destination, starting at offset, and returns the number of characters
+     * written. Apart from the password, nothing is allocated, so the caller can overwrite the password once it is no
+     * longer needed instead of leaving it in an immutable String.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if destination has less than getMaximumPasswordLength(length) characters after offset
+     */
+    public int getPassword(char[] destination, int offset, int length) {
+        int maximumLength = this.getMaximumPasswordLength(length);
+        if (offset < 0 || maximumLength > destination.length - offset) {
+            throw new IndexOutOfBoundsException("No room for " + maximumLength + " characters at offset " + offset);
+        }
+        return this.generateMeasuredPassword(this.getRandomGenerator(), destination, offset, length);
+    }
+
+    /**
+     * Writes a password of the given length into destination at its current position, advances the position past the
+     * password and returns the number of characters written. Only allocates if the buffer is not backed by an array.
+     *
+     * @throws BufferOverflowException
+     *             if destination has less than getMaximumPasswordLength(length) characters remaining
+     */
+    public int getPassword(CharBuffer destination, int length) {
+        int maximumLength = this.getMaximumPasswordLength(length);
+        if (destination.remaining() < maximumLength) {
+            throw new BufferOverflowException();
+        }
+
+        IRandom random = this.getRandomGenerator();
+        int passwordLength;
+        if (destination.hasArray()) {
+            passwordLength = this.generateMeasuredPassword(random, destination.array(), destination.arrayOffset()
+                    + destination.position(), length);
+        } else {
+            char[] password = new char[maximumLength];
+            passwordLength = this.generateMeasuredPassword(random, password, 0, length);
+            destination.duplicate().put(password, 0, passwordLength);
+            Arrays.fill(password, '\0');
+        }
+        destination.position(destination.position() + passwordLength);
+        return passwordLength;
+    }
+
+    /**
+     * Creates count passwords of the given length. The passwords are stored back to back in a single character array,
+     * which is cheaper than creating count separate Strings when generating many passwords at once
+     */
+    public PasswordBatch getPasswords(int count, int length) {
+        // The generator of the thread already counts its draws
+        return this.generatePasswords(this.getRandomGenerator(), count, length);
+    }
+
+    /**
+     * Creates count passwords of the given length, drawing all random decisions from the given generator. The draws are
+     * counted in the metrics, if any.
+     */
+    protected PasswordBatch getPasswords(IRandom random, int count, int length) {
+        if (this.metrics != null) {
+            random = new PasswordFactoryMetrics.CountingRandom(random, this.metrics);
+        }
+        return this.generatePasswords(random, count, length);
+    }
+
+    private PasswordBatch generatePasswords(IRandom random, int count, int length) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        long capacity = (long) count * this.getMaximumPasswordLength(length);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A batch of " + count + " passwords of length " + length
+                    + " does not fit into a single array");
+        }
+
+        char[] characters = new char[(int) capacity];
+        int[] offsets = new int[count + 1];
+        int position = 0;
+        for (int i = 0; i < count; ++i) {
+            offsets[i] = position;
+            position += this.generateMeasuredPassword(random, characters, position, length);
+        }
+        offsets[count] = position;
+        return new PasswordBatch(characters, offsets);
+    }
+
+    /**
+     * Writes a single password of the given length to writer, e.g., a key of several megabytes. The password is
+     * generated in segments of at most SEGMENT_LENGTH units, so that memory use does not depend on the length and the
+     * time is linear in it. Passwords of up to SEGMENT_LENGTH units are created exactly like by getPassword, i.e.,
+     * without calling generateSegment. Longer passwords are recorded as a single password in the metrics.
+     *
+     * The classes the password must include are tracked across segments and passed to generateSegment, so that no
+     * part of the password that has been written is ever discarded. The writer is flushed, but not closed.
+     *
+     * @throws IllegalStateException
+     *             if the password is longer than one segment and the factory has a blocklist, as long passwords
+     *             contain short words by chance
+     */
+    public void writePassword(long length, Writer writer) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+        long segmentCount = Math.max(1, (length + SEGMENT_LENGTH - 1) / SEGMENT_LENGTH);
+        if (segmentCount > 1 && this.blocklist != null) {
+            throw new IllegalStateException("A password of length " + length + " cannot avoid blocked words");
+        }
+
+        int missingClasses = 0;
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            missingClasses |= CLASS_UPPERCASE;
+        }
+        if (this.includeDigits == TriValueBoolean.MUST) {
+            missingClasses |= CLASS_DIGIT;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST) {
+            missingClasses |= CLASS_SYMBOL;
+        }
+
+        IRandom random = this.getRandomGenerator();
+        // Leave room for one more unit, e.g., a separator between segments
+        char[] segment = new char[this.getMaximumPasswordLength(SEGMENT_LENGTH + 1)];
+        if (segmentCount == 1) {
+            // Go through the same path as getPassword, which discards blocked words and records the metrics
+            int passwordLength = this.generateMeasuredPassword(random, segment, 0, (int) length);
+            writer.write(segment, 0, passwordLength);
+            Arrays.fill(segment, '\0');
+            writer.flush();
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Spread the length evenly, so that the last segment is not much shorter than the others
+        long segmentLength = length / segmentCount;
+        long longerSegments = length % segmentCount;
+        long position = 0;
+        for (long i = 0; i < segmentCount; ++i) {
+            int unitCount = (int) (i < longerSegments ? segmentLength + 1 : segmentLength);
+            int segmentSize = this.generateSegment(random, segment, position, unitCount, length, missingClasses);
+            for (int j = 0; missingClasses != 0 && j < segmentSize; ++j) {
+                missingClasses &= ~getCharacterClasses(segment[j]);
+            }
+            writer.write(segment, 0, segmentSize);
+            position += unitCount;
+        }
+        Arrays.fill(segment, '\0');
+        if (this.metrics != null) {
+            this.metrics.countGeneratedPassword(System.nanoTime() - start);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes a single password of the given length to channel in UTF-8, see writePassword(long, Writer). The channel
+     * is not closed.
+     */
+    public void writePassword(long length, WritableByteChannel channel) throws IOException {
+        this.writePassword(length, Channels.newWriter(channel, "UTF-8"));
+    }
+
+    /**
+     * Writes the next segment of a password written by writePassword into destination and returns the number of
+     * characters written. The segment consists of length units and starts after the first position units of a
+     * password of totalLength units. missingClasses are the classes (CLASS_*) the password must include, but the
+     * preceding segments do not.
+     *
+     * This is only called for passwords of more than one segment, so that each segment is at least SEGMENT_LENGTH / 2
+     * units long. By default, each segment is a password of its own, which includes all required classes. Such long
+     * segments hardly ever miss a class by chance, so that this barely changes the distribution.
+     */
+    protected int generateSegment(IRandom random, char[] destination, long position, int length, long totalLength,
+            int missingClasses) {
+        return this.generatePassword(random, destination, 0, length);
+    }
+
+    /** Calls generatePassword and records it in the metrics, if any */
+    private int generateMeasuredPassword(IRandom random, char[] destination, int offset, int length) {
+        if (this.metrics == null) {
+            return this.generatePassword(random, destination, offset, length);
+        }
+        long start = System.nanoTime();
+        int passwordLength = this.generatePassword(random, destination, offset, length);
+        this.metrics.countGeneratedPassword(System.nanoTime() - start);
+        return passwordLength;
+    }
+
+    /**
+     * Writes a password of the given length into destination, starting at offset, and returns the number of characters
+     * written. The destination must have room for getMaximumPasswordLength(length) characters. All random decisions
+     * are drawn from the given random number generator, which is only used by the calling thread.
+     */
+    protected abstract int generatePassword(IRandom random, char[] destination, int offset, int length);
+
+    /** Returns the maximum number of characters generatePassword writes for a password of the given length */
+    protected int getMaximumPasswordLength(int length) {
+        return length;
+    }
+
+    /**
+     * Returns the number of different passwords of the given length this factory can create. The counts are cached,
+     * so that calls for lengths up to the longest one requested so far do not count again.
+     */
+    public BigInteger getPasswordCount(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+        BigInteger[] cached = this.passwordCounts;
+        if (length >= cached.length) {
+            this.updatePasswordCounts(length);
+            cached = this.passwordCounts;
+        }
+        return cached[length];
+    }
+
+    /**
+     * Returns the entropy of a password of the given length in bits, i.e., the base 2 logarithm of
+     * getPasswordCount(length), or negative infinity if there is no such password. This is the exact entropy if all
+     * passwords are equally likely, as for RandomPasswordFactory, and an upper bound for it otherwise.
+     */
+    public double getEntropy(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative");
+        }
+        double[] cached = this.entropies;
+        if (length >= cached.length) {
+            this.updatePasswordCounts(length);
+            cached = this.entropies;
+        }
+        return cached[length];
+    }
+
+    /**
+     * Returns the shortest length for which getEntropy is at least the given number of bits, or -1 if there is no
+     * such length up to maximumLength
+     */
+    public int getMinimumLength(double bits, int maximumLength) {
+        int length = 0;
+        while (length <= maximumLength) {
+            double[] cached = this.entropies;
+            if (length >= cached.length) {
+                // Count ahead, so that searching for a long length does not count once per length
+                this.updatePasswordCounts(Math.min(maximumLength, Math.max(length, 2 * cached.length)));
+                cached = this.entropies;
+            }
+            for (; length < cached.length && length <= maximumLength; ++length) {
+                if (cached[length] >= bits) {
+                    return length;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /** Makes sure that the cached counts cover all lengths up to maximumLength */
+    private synchronized void updatePasswordCounts(int maximumLength) {
+        if (maximumLength < this.passwordCounts.length) {
+            return;
+        }
+        BigInteger[] counts = this.countPasswords(maximumLength);
+        double[] bits = new double[counts.length];
+        for (int length = 0; length < counts.length; ++length) {
+            bits[length] = log2(counts[length]);
+        }
+        this.entropies = bits;
+        this.passwordCounts = counts;
+    }
+
+    /**
+     * Returns the number of different passwords generatePassword can write for each length from 0 to maximumLength,
+     * indexed by the length
+     */
+    protected abstract BigInteger[] countPasswords(int maximumLength);
+
+    /** Returns the base 2 logarithm of the given non-negative number, or negative infinity if it is zero */
+    private static double log2(BigInteger value) {
+        if (value.signum() == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        // Keep the 53 most significant bits, which is all a double can represent anyway
+        int shift = Math.max(0, value.bitLength() - 53);
+        return Math.log(value.shiftRight(shift).doubleValue()) / Math.log(2) + shift;
+    }
+
+    private static byte[] createCharacterClasses() {
+        byte[] returnValue = new byte[128];
+        addCharacterClass(returnValue, pw_uppers, CLASS_UPPERCASE);
+        addCharacterClass(returnValue, pw_lowers, CLASS_LOWERCASE);
+        addCharacterClass(returnValue, pw_digits, CLASS_DIGIT);
+        addCharacterClass(returnValue, pw_symbols, CLASS_SYMBOL);
+        addCharacterClass(returnValue, pw_ambiguous, CLASS_AMBIGUOUS);
+        addCharacterClass(returnValue, pw_vowels, CLASS_VOWEL);
+        return returnValue;
+    }
+
+    private static void addCharacterClass(byte[] characterClasses, String pool, int characterClass) {
+        for (int i = 0; i < pool.length(); ++i) {
+            characterClasses[pool.charAt(i)] |= characterClass;
+        }
+    }
+
+    /** Returns the bitmask of the character classes (CLASS_*) the given character belongs to */
+    protected static int getCharacterClasses(char character) {
+        return character < characterClasses.length ? characterClasses[character] : 0;
+    }
+
+    /** Returns true if the given character belongs to at least one of the given character classes */
+    protected static boolean isOfClass(char character, int characterClasses) {
+        return (getCharacterClasses(character) & characterClasses) != 0;
+    }
+
+    /**
+     * Returns true if the password stored in password[offset, offset + length) contains all required classes and no
+     * blocked word
+     */
+    protected boolean isAdmissablePassword(char[] password, int offset, int length) {
+        int includedClasses = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            includedClasses |= getCharacterClasses(password[i]);
+        }
+
+        if (this.includeUppercase == TriValueBoolean.MUST && (includedClasses & CLASS_UPPERCASE) == 0) {
+            return false;
+        }
+        if (this.includeDigits == TriValueBoolean.MUST && (includedClasses & CLASS_DIGIT) == 0) {
+            return false;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST && (includedClasses & CLASS_SYMBOL) == 0) {
+            return false;
+        }
+        // Scan for blocked words last, as the classes are cheaper to check
+        return !this.isBlocked(password, offset, length);
+    }
+
+    /** Returns true if the password stored in password[offset, offset + length) contains a blocked word */
+    protected boolean isBlocked(char[] password, int offset, int length) {
+        return this.blocklist != null && this.blocklist.isBlocked(password, offset, length);
+    }
+
+    /** Returns a uniformly distributed value from [0,1) with 53 random bits */
+    protected static double getRandomDouble(IRandom random) {
+        long high = random.getRandomBits(26);
+        long low = random.getRandomBits(27);
+        return ((high << 27) + low) * (1.0 / (1L << 53));
+    }
+
+    /** Returns the blocklist of this factory, or null if no words are blocked */
+    protected BlocklistFilter getBlocklist() {
+        return this.blocklist;
+    }
+
+    /** Returns the metrics collected by this factory, or null if it does not collect any */
+    public PasswordFactoryMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /** Records that the given number of generated passwords have been discarded */
+    protected void countRejectedPasswords(int count) {
+        if (this.metrics != null && count > 0) {
+            this.metrics.countRejectedPasswords(count);
+        }
+    }
+
+    /**
+     * Gives up if generating a password of the given length has discarded MAXIMUM_REJECTIONS passwords, after
+     * recording them
+     *
+     * @throws IllegalStateException
+     *             if count has reached MAXIMUM_REJECTIONS
+     */
+    protected void checkRejectedPasswords(int count, int length) {
+        if (count >= MAXIMUM_REJECTIONS) {
+            this.countRejectedPasswords(count);
+            throw new IllegalStateException("No admissable password of length " + length + " found in "
+                    + MAXIMUM_REJECTIONS + " attempts");
+        }
+    }
+
+    /** Records that a single character or element has been drawn and discarded */
+    protected void countRejectedCharacter() {
+        if (this.metrics != null) {
+            this.metrics.countRejectedCharacter();
+        }
+    }
+
+    /** Returns the random number generator to be used by the current thread */
+    protected IRandom getRandomGenerator() {
+        return this.threadRandomGenerator.get();
+    }
+
+    private IRandom createThreadRandomGenerator() {
+        IRandom returnValue = this.randomGenerator;
+        if (returnValue instanceof ISplittableRandom) {
+            ISplittableRandom splittable = (ISplittableRandom) returnValue;
+            synchronized (splittable) {
+                returnValue = splittable.split();
+            }
+        }
+        if (this.metrics != null) {
+            returnValue = new PasswordFactoryMetrics.CountingRandom(returnValue, this.metrics);
+        }
+        return returnValue;
+    }
+}
@@ -0,0 +1,122 @@
+package com.alexweinert.pwgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts what a PasswordFactory does while generating passwords, e.g., to find out why a configuration is slow.
+ *
+ * Pass an instance to PasswordFactory.Builder.collectMetrics to enable it. Factories without metrics do not collect
+ * anything and do not pay for it. One instance may be shared by several factories and threads.
+ */
+public class PasswordFactoryMetrics {
+
+    /** Number of buckets of the latency histogram, one per power of two nanoseconds */
+    public static final int LATENCY_BUCKETS = 64;
+
+    private final AtomicLong generatedPasswords = new AtomicLong();
+    private final AtomicLong rejectedPasswords = new AtomicLong();
+    private final AtomicLong rejectedCharacters = new AtomicLong();
+    private final AtomicLong randomInts = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+
+    /** Returns the number of passwords returned by the factories */
+    public long getGeneratedPasswordCount() {
+        return this.generatedPasswords.get();
+    }
+
+    /** Returns the number of complete passwords that were discarded because they did not satisfy the MUST options */
+    public long getRejectedPasswordCount() {
+        return this.rejectedPasswords.get();
+    }
+
+    /** Returns the number of single characters or elements that were drawn and discarded while building passwords */
+    public long getRejectedCharacterCount() {
+        return this.rejectedCharacters.get();
+    }
+
+    /** Returns the number of values drawn from the random number generators */
+    public long getRandomIntCount() {
+        return this.randomInts.get();
+    }
+
+    /**
+     * Returns the number of passwords whose generation took [2^(i-1), 2^i) nanoseconds at index i, and less than one
+     * nanosecond at index 0
+     */
+    public long[] getLatencyHistogram() {
+        long[] returnValue = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            returnValue[i] = this.latencies.get(i);
+        }
+        return returnValue;
+    }
+
+    /** Sets all counters to zero */
+    public void reset() {
+        this.generatedPasswords.set(0);
+        this.rejectedPasswords.set(0);
+        this.rejectedCharacters.set(0);
+        this.randomInts.set(0);
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            this.latencies.set(i, 0);
+        }
+    }
+
+    void countGeneratedPassword(long latencyNanos) {
+        this.generatedPasswords.incrementAndGet();
+        this.latencies.incrementAndGet(LATENCY_BUCKETS - Long.numberOfLeadingZeros(Math.max(latencyNanos, 0)));
+    }
+
+    void countRejectedPasswords(int count) {
+        this.rejectedPasswords.addAndGet(count);
+    }
+
+    void countRejectedCharacter() {
+        this.rejectedCharacters.incrementAndGet();
+    }
+
+    void countRandomInt() {
+        this.randomInts.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder returnValue = new StringBuilder();
+        returnValue.append("passwords: ").append(this.getGeneratedPasswordCount());
+        returnValue.append(", rejected passwords: ").append(this.getRejectedPasswordCount());
+        returnValue.append(", rejected characters: ").append(this.getRejectedCharacterCount());
+        returnValue.append(", random ints: ").append(this.getRandomIntCount());
+        returnValue.append(", latencies:");
+        long[] histogram = this.getLatencyHistogram();
+        for (int i = 0; i < LATENCY_BUCKETS; ++i) {
+            if (histogram[i] > 0) {
+                returnValue.append(" <").append(1L << i).append("ns: ").append(histogram[i]);
+            }
+        }
+        return returnValue.toString();
+    }
+
+    /** Counts the values drawn from a random number generator */
+    static class CountingRandom implements IRandom {
+        private final IRandom random;
+        private final PasswordFactoryMetrics metrics;
+
+        CountingRandom(IRandom random, PasswordFactoryMetrics metrics) {
+            this.random = random;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int getRandomInt(int max) {
+            this.metrics.countRandomInt();
+            return this.random.getRandomInt(max);
+        }
+
+        @Override
+        public int getRandomBits(int count) {
+            this.metrics.countRandomInt();
+            return this.random.getRandomBits(count);
+        }
+    }
+}
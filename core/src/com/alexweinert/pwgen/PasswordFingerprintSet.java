@@ -0,0 +1,90 @@
+package com.alexweinert.pwgen;
+
+/**
+ * A set of passwords that stores a 64-bit fingerprint of each password in an open-addressing hash table.
+ *
+ * The table is a single long array with linear probing, so a set for n passwords takes about 10n bytes, no matter how
+ * long the passwords are. Two different passwords have the same fingerprint with a probability of about 2^-64, in
+ * which case the second one is reported as contained. Fingerprints do not depend on a seed, so that a deterministic
+ * BulkPasswordGenerator stays deterministic. This set is not thread-safe.
+ */
+public class PasswordFingerprintSet implements IPasswordSet {
+
+    /** The maximum ratio of fingerprints to slots */
+    private static final double MAXIMUM_LOAD = 0.8;
+    /** Marks empty slots. A fingerprint of 0 is stored as 1 instead */
+    private static final long EMPTY = 0;
+    /** The largest array that all virtual machines can allocate */
+    private static final int MAXIMUM_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final long[] slots;
+    private final int capacity;
+    private int size = 0;
+
+    /** Creates an empty set that holds up to capacity passwords */
+    public PasswordFingerprintSet(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        long slotCount = (long) Math.ceil(capacity / MAXIMUM_LOAD) + 1;
+        if (slotCount > MAXIMUM_ARRAY_SIZE) {
+            throw new IllegalArgumentException("A set of " + capacity + " passwords does not fit into a single array");
+        }
+        this.slots = new long[(int) slotCount];
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean add(char[] password, int offset, int length) {
+        long fingerprint = getFingerprint(password, offset, length);
+        if (fingerprint == EMPTY) {
+            fingerprint = 1;
+        }
+        int slot = getIndex(fingerprint, this.slots.length);
+        while (this.slots[slot] != EMPTY) {
+            if (this.slots[slot] == fingerprint) {
+                return false;
+            }
+            if (++slot == this.slots.length) {
+                slot = 0;
+            }
+        }
+        if (this.size == this.capacity) {
+            throw new IllegalStateException("The set already holds " + this.capacity + " passwords");
+        }
+        this.slots[slot] = fingerprint;
+        ++this.size;
+        return true;
+    }
+
+    /** Returns the number of passwords in this set */
+    @Override
+    public long size() {
+        return this.size;
+    }
+
+    /** Returns the maximum number of passwords in this set */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /** Returns a well-mixed 64-bit hash of the password stored in password[offset, offset + length) */
+    static long getFingerprint(char[] password, int offset, int length) {
+        long returnValue = length;
+        for (int i = offset; i < offset + length; ++i) {
+            returnValue = (returnValue ^ password[i]) * 0x9e3779b97f4a7c15L;
+        }
+        // The finalizer of MurmurHash3, so that every input bit affects every output bit
+        returnValue ^= returnValue >>> 33;
+        returnValue *= 0xff51afd7ed558ccdL;
+        returnValue ^= returnValue >>> 33;
+        returnValue *= 0xc4ceb9fe1a85ec53L;
+        returnValue ^= returnValue >>> 33;
+        return returnValue;
+    }
+
+    /** Maps the upper half of hash uniformly to [0, size) without a division */
+    static int getIndex(long hash, int size) {
+        return (int) (((hash >>> 32) * size) >>> 32);
+    }
+}
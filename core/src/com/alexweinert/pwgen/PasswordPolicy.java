@@ -0,0 +1,263 @@
+package com.alexweinert.pwgen;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A compiled set of named character pools, each with a minimum and a maximum number of characters that a password
+ * must contain from it.
+ *
+ * The alphabet of a password is every character of a pool, except for the characters of pools whose maximum is 0.
+ * Pools may overlap, in which case a character counts for each pool that contains it. Compiling groups the characters
+ * of the alphabet by the pools they belong to and tracks, in a state, how many characters of each constrained pool a
+ * password contains so far, capped at the number that still matters. Building a password is then a walk through a
+ * precomputed table of state transitions, and counting passwords a sum over it. Policies are immutable and may be
+ * shared between threads.
+ */
+public class PasswordPolicy {
+
+    /** Maximum number of states, to bound the memory of the transition table */
+    private static final int MAXIMUM_STATE_COUNT = 1 << 16;
+
+    /** The characters of the alphabet, sorted by their group */
+    private final char[] alphabet;
+    /** The characters of each group, which all belong to the same pools */
+    private final char[][] groups;
+    /** The next state after a character of group g in state s at index s * groups.length + g, or -1 if none */
+    private final int[] transitions;
+    /** True for each state in which all minimums are reached */
+    private final boolean[] accepting;
+    /** True for each state from which every character leads back to it, i.e., no pool constrains the rest */
+    private final boolean[] unconstrained;
+
+    private PasswordPolicy(char[] alphabet, char[][] groups, int[] transitions, boolean[] accepting,
+            boolean[] unconstrained) {
+        this.alphabet = alphabet;
+        this.groups = groups;
+        this.transitions = transitions;
+        this.accepting = accepting;
+        this.unconstrained = unconstrained;
+    }
+
+    public static class Builder {
+        private final List<String> names = new ArrayList<String>();
+        private final List<String> pools = new ArrayList<String>();
+        private final List<Integer> minimumCounts = new ArrayList<Integer>();
+        private final List<Integer> maximumCounts = new ArrayList<Integer>();
+
+        /**
+         * Adds a pool of the given characters, of which a password must contain at least minimumCount and at most
+         * maximumCount. Use Integer.MAX_VALUE if there is no maximum.
+         */
+        public Builder addPool(String name, String characters, int minimumCount, int maximumCount) {
+            if (this.names.contains(name)) {
+                throw new IllegalArgumentException("There already is a pool named " + name);
+            }
+            if (characters.isEmpty()) {
+                throw new IllegalArgumentException("The pool " + name + " is empty");
+            }
+            if (minimumCount < 0 || maximumCount < minimumCount) {
+                throw new IllegalArgumentException("The pool " + name + " must have 0 <= minimum <= maximum");
+            }
+            this.names.add(name);
+            this.pools.add(characters);
+            this.minimumCounts.add(minimumCount);
+            this.maximumCounts.add(maximumCount);
+            return this;
+        }
+
+        /** Adds a pool of which a password must contain at least one character */
+        public Builder mustInclude(String name, String characters) {
+            return this.addPool(name, characters, 1, Integer.MAX_VALUE);
+        }
+
+        /** Adds a pool of which a password may contain any number of characters */
+        public Builder mayInclude(String name, String characters) {
+            return this.addPool(name, characters, 0, Integer.MAX_VALUE);
+        }
+
+        /** Adds a pool of which a password must not contain any character */
+        public Builder mustNotInclude(String name, String characters) {
+            return this.addPool(name, characters, 0, 0);
+        }
+
+        /** Returns true if no pool has been added */
+        public boolean isEmpty() {
+            return this.names.isEmpty();
+        }
+
+        /**
+         * Compiles the pools into a policy
+         *
+         * @throws IllegalArgumentException
+         *             if the alphabet is empty, or if the minimums and maximums need too many states
+         */
+        public PasswordPolicy compile() {
+            // The alphabet, and for each character the constrained pools it belongs to
+            BitSet excluded = new BitSet();
+            BitSet included = new BitSet();
+            for (int i = 0; i < this.pools.size(); ++i) {
+                for (char character : this.pools.get(i).toCharArray()) {
+                    (this.maximumCounts.get(i) == 0 ? excluded : included).set(character);
+                }
+            }
+            included.andNot(excluded);
+            if (included.isEmpty()) {
+                throw new IllegalArgumentException("The pools leave no character for passwords");
+            }
+
+            // Only pools with a minimum or a finite maximum need to be tracked, each by a digit of the state
+            List<Integer> constrained = new ArrayList<Integer>();
+            for (int i = 0; i < this.pools.size(); ++i) {
+                int maximum = this.maximumCounts.get(i);
+                if (maximum > 0 && (this.minimumCounts.get(i) > 0 || maximum < Integer.MAX_VALUE)) {
+                    constrained.add(i);
+                }
+            }
+            if (constrained.size() > 30) {
+                throw new IllegalArgumentException("At most 30 pools may have a minimum or a maximum");
+            }
+            int[] caps = new int[constrained.size()];
+            int[] radixes = new int[constrained.size()];
+            long stateCount = 1;
+            for (int i = 0; i < caps.length; ++i) {
+                int pool = constrained.get(i);
+                int maximum = this.maximumCounts.get(pool);
+                // Without a maximum, counts beyond the minimum are all alike
+                caps[i] = (maximum < Integer.MAX_VALUE) ? maximum : this.minimumCounts.get(pool);
+                radixes[i] = (int) stateCount;
+                stateCount *= caps[i] + 1;
+                if (stateCount > MAXIMUM_STATE_COUNT) {
+                    throw new IllegalArgumentException("The minimums and maximums of the pools are too large");
+                }
+            }
+
+            // Group the characters by the set of constrained pools they belong to
+            char[] alphabet = new char[included.cardinality()];
+            int[] masks = new int[alphabet.length];
+            int position = 0;
+            int character = -1;
+            while ((character = included.nextSetBit(character + 1)) >= 0) {
+                int mask = 0;
+                for (int i = 0; i < caps.length; ++i) {
+                    if (this.pools.get(constrained.get(i)).indexOf(character) >= 0) {
+                        mask |= 1 << i;
+                    }
+                }
+                alphabet[position] = (char) character;
+                masks[position] = mask;
+                ++position;
+            }
+            int[] groupMasks = new int[alphabet.length];
+            int groupCount = 0;
+            int[] groupSizes = new int[alphabet.length];
+            int[] groupOfCharacter = new int[alphabet.length];
+            for (int i = 0; i < alphabet.length; ++i) {
+                int group = 0;
+                while (group < groupCount && groupMasks[group] != masks[i]) {
+                    ++group;
+                }
+                if (group == groupCount) {
+                    groupMasks[groupCount++] = masks[i];
+                }
+                groupOfCharacter[i] = group;
+                ++groupSizes[group];
+            }
+            char[][] groups = new char[groupCount][];
+            for (int group = 0; group < groupCount; ++group) {
+                groups[group] = new char[groupSizes[group]];
+                groupSizes[group] = 0;
+            }
+            for (int i = 0; i < alphabet.length; ++i) {
+                int group = groupOfCharacter[i];
+                groups[group][groupSizes[group]++] = alphabet[i];
+            }
+            position = 0;
+            for (char[] group : groups) {
+                System.arraycopy(group, 0, alphabet, position, group.length);
+                position += group.length;
+            }
+
+            // Precompute the transition of every state for every group
+            int[] transitions = new int[(int) stateCount * groupCount];
+            boolean[] accepting = new boolean[(int) stateCount];
+            boolean[] unconstrained = new boolean[(int) stateCount];
+            for (int state = 0; state < stateCount; ++state) {
+                accepting[state] = true;
+                for (int i = 0; i < caps.length; ++i) {
+                    int count = (state / radixes[i]) % (caps[i] + 1);
+                    accepting[state] &= count >= this.minimumCounts.get(constrained.get(i));
+                }
+                unconstrained[state] = accepting[state];
+                for (int group = 0; group < groupCount; ++group) {
+                    int next = state;
+                    for (int i = 0; i < caps.length && next >= 0; ++i) {
+                        if ((groupMasks[group] & (1 << i)) == 0) {
+                            continue;
+                        }
+                        int count = (state / radixes[i]) % (caps[i] + 1);
+                        if (count < caps[i]) {
+                            next += radixes[i];
+                        } else if (this.maximumCounts.get(constrained.get(i)) < Integer.MAX_VALUE) {
+                            next = -1;
+                        }
+                    }
+                    transitions[state * groupCount + group] = next;
+                    unconstrained[state] &= next == state;
+                }
+            }
+            return new PasswordPolicy(alphabet, groups, transitions, accepting, unconstrained);
+        }
+    }
+
+    /** Returns the characters passwords may contain */
+    public char[] getAlphabet() {
+        return this.alphabet.clone();
+    }
+
+    /** Returns the number of states of the compiled policy */
+    public int getStateCount() {
+        return this.accepting.length;
+    }
+
+    /** Returns the number of groups of characters that belong to the same pools */
+    int getGroupCount() {
+        return this.groups.length;
+    }
+
+    /** Returns the characters of the given group. The caller must not change them */
+    char[] getGroup(int group) {
+        return this.groups[group];
+    }
+
+    /** Returns all characters of the alphabet. The caller must not change them */
+    char[] getCharacters() {
+        return this.alphabet;
+    }
+
+    /** Returns the state after a character of the given group, or -1 if that would exceed a maximum */
+    int getNextState(int state, int group) {
+        return this.transitions[state * this.groups.length + group];
+    }
+
+    /** Returns true if some pool has a maximum, i.e., some character may exceed it */
+    boolean hasMaximum() {
+        for (int next : this.transitions) {
+            if (next < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true if a password that ends in the given state reaches all minimums */
+    boolean isAccepting(int state) {
+        return this.accepting[state];
+    }
+
+    /** Returns true if every character keeps the given state, so that the rest can be drawn from the alphabet */
+    boolean isUnconstrained(int state) {
+        return this.unconstrained[state];
+    }
+}
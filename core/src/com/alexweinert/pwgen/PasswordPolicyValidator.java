@@ -0,0 +1,258 @@
+package com.alexweinert.pwgen;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.alexweinert.pwgen.PasswordFactory.TriValueBoolean;
+
+/**
+ * Checks existing passwords against the policy of a PasswordFactory, e.g., to audit a dump of passwords.
+ *
+ * For each character class, a password violates the policy if the factory must include the class but the password
+ * has none of its characters, or if the factory must not include the class but the password has one. Besides,
+ * passwords violate it if they are shorter than a minimum length, contain control or non-ASCII characters, or contain a
+ * word of the blocklist of the factory. Not every factory enforces all of these, e.g., pronouncable passwords may
+ * contain ambiguous characters no matter what the options say.
+ *
+ * A PolicyPasswordFactory ignores these options, so its passwords are checked against its PasswordPolicy instead: Each
+ * character must be in the alphabet of the pools, and the walk through the states of the policy must neither exceed a
+ * maximum nor end before all minimums are reached.
+ *
+ * Each character costs a single lookup in a table of character classes, or of groups of the policy, and a transition
+ * in the latter case, so checking a password allocates nothing.
+ * Validators are immutable and may be shared between threads.
+ */
+public class PasswordPolicyValidator {
+
+    /**
+     * The ways in which a password can violate the policy. The MISSING and FORBIDDEN constants are in the order of the
+     * character classes of PasswordFactory, so that a class maps to its violations by shifting.
+     */
+    public enum Violation {
+        MISSING_UPPERCASE, MISSING_LOWERCASE, MISSING_DIGIT, MISSING_SYMBOL, MISSING_AMBIGUOUS, MISSING_VOWEL,
+        FORBIDDEN_UPPERCASE, FORBIDDEN_LOWERCASE, FORBIDDEN_DIGIT, FORBIDDEN_SYMBOL, FORBIDDEN_AMBIGUOUS,
+        FORBIDDEN_VOWEL,
+        /** The password contains a control or non-ASCII character, which no factory creates */
+        INVALID_CHARACTER,
+        /** The password is shorter than the minimum length */
+        TOO_SHORT,
+        /** The password contains a word of the blocklist */
+        BLOCKED_WORD,
+        /** The password contains a character that is in no pool of the policy, or only in pools with a maximum of 0 */
+        FOREIGN_CHARACTER,
+        /** The password contains more characters of a pool of the policy than its maximum */
+        EXCEEDED_MAXIMUM,
+        /** The password contains fewer characters of a pool of the policy than its minimum */
+        MISSED_MINIMUM;
+
+        /** Returns the bit of this violation in the bitmasks returned by getViolations */
+        public int getBit() {
+            return 1 << this.ordinal();
+        }
+
+        /** Returns true if this violation is in the given bitmask returned by getViolations */
+        public boolean isIn(int violations) {
+            return (violations & this.getBit()) != 0;
+        }
+    }
+
+    /** Number of character classes of PasswordFactory */
+    private static final int CLASS_COUNT = 6;
+    /** Pseudo character class of the characters that no factory creates, directly above the real ones */
+    private static final int CLASS_INVALID = 1 << CLASS_COUNT;
+
+    /** Bitmask of the character classes of each byte, indexed by its unsigned value */
+    private static final byte[] characterClasses = createCharacterClasses();
+
+    /** The classes a password must include */
+    private final int requiredClasses;
+    /** The classes a password must not include, always including CLASS_INVALID */
+    private final int forbiddenClasses;
+    private final int minimumLength;
+    /** The blocklist of the factory, or null if it has none */
+    private final BlocklistFilter blocklist;
+    /** The policy of the factory, or null if the options of the factory apply */
+    private final PasswordPolicy policy;
+    /** The group of the policy of each character up to the largest one of the alphabet, or -1 if it is in none */
+    private final int[] groupOfCharacter;
+
+    /** Creates a validator for the options of the given factory and passwords of at least minimumLength characters */
+    public PasswordPolicyValidator(PasswordFactory factory, int minimumLength) {
+        int requiredClasses = 0;
+        int forbiddenClasses = 0;
+        if (factory instanceof PolicyPasswordFactory) {
+            this.policy = ((PolicyPasswordFactory) factory).getPolicy();
+            this.groupOfCharacter = createGroupOfCharacter(this.policy);
+        } else {
+            this.policy = null;
+            this.groupOfCharacter = null;
+            forbiddenClasses = CLASS_INVALID;
+            TriValueBoolean[] options = { factory.includeUppercase, factory.includeLowercase, factory.includeDigits,
+                    factory.includeSymbols, factory.includeAmbiguous, factory.includeVowels };
+            for (int i = 0; i < CLASS_COUNT; ++i) {
+                if (options[i] == TriValueBoolean.MUST) {
+                    requiredClasses |= 1 << i;
+                } else if (options[i] == TriValueBoolean.MUSTNOT) {
+                    forbiddenClasses |= 1 << i;
+                }
+            }
+        }
+        this.requiredClasses = requiredClasses;
+        this.forbiddenClasses = forbiddenClasses;
+        this.minimumLength = minimumLength;
+        this.blocklist = factory.getBlocklist();
+    }
+
+    /** Returns true if the password stored in password[offset, offset + length) satisfies the policy */
+    public boolean isValid(char[] password, int offset, int length) {
+        return this.getViolations(password, offset, length) == 0;
+    }
+
+    /**
+     * Returns the bitmask of the violations of the password stored in password[offset, offset + length), or 0 if it
+     * satisfies the policy
+     */
+    public int getViolations(char[] password, int offset, int length) {
+        int returnValue;
+        if (this.policy == null) {
+            int includedClasses = 0;
+            for (int i = offset; i < offset + length; ++i) {
+                char character = password[i];
+                includedClasses |= (character < 128) ? characterClasses[character] : CLASS_INVALID;
+            }
+            returnValue = this.getViolations(includedClasses, length);
+        } else {
+            int state = 0;
+            int policyViolations = 0;
+            for (int i = offset; i < offset + length; ++i) {
+                int next = this.getNextState(state, password[i]);
+                if (next < 0) {
+                    policyViolations |= -next;
+                } else {
+                    state = next;
+                }
+            }
+            returnValue = this.getPolicyViolations(state, policyViolations, length);
+        }
+        if (this.blocklist != null && this.blocklist.isBlocked(password, offset, length)) {
+            returnValue |= Violation.BLOCKED_WORD.getBit();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Returns the bitmask of the violations of the password stored in bytes[offset, offset + length) in UTF-8, or 0 if
+     * it satisfies the policy. Without a policy, all characters outside of ASCII are invalid, so that the bytes need
+     * not be decoded.
+     */
+    public int getViolations(ByteBuffer bytes, int offset, int length) {
+        if (this.policy != null) {
+            return this.getPolicyViolations(bytes, offset, length);
+        }
+        int includedClasses = 0;
+        int continuationBytes = 0;
+        for (int i = offset; i < offset + length; ++i) {
+            int character = bytes.get(i) & 0xff;
+            includedClasses |= characterClasses[character];
+            // Count the characters rather than the bytes of the password
+            continuationBytes += (character & 0xc0) == 0x80 ? 1 : 0;
+        }
+        int returnValue = this.getViolations(includedClasses, length - continuationBytes);
+        if (this.blocklist != null && this.blocklist.isBlocked(bytes, offset, length)) {
+            returnValue |= Violation.BLOCKED_WORD.getBit();
+        }
+        return returnValue;
+    }
+
+    /** Decodes the UTF-8 password in bytes[offset, offset + length) character by character and walks the policy */
+    private int getPolicyViolations(ByteBuffer bytes, int offset, int length) {
+        int state = 0;
+        int policyViolations = 0;
+        int characterCount = 0;
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int character = bytes.get(i++) & 0xff;
+            if (character >= 0x80) {
+                // Characters beyond the sequences of three bytes are in no alphabet, as pools consist of chars
+                int sequenceLength = (character < 0xe0) ? 2 : (character < 0xf0) ? 3 : 4;
+                character &= 0x7f >> sequenceLength;
+                for (int j = 1; j < sequenceLength && i < end && (bytes.get(i) & 0xc0) == 0x80; ++j) {
+                    character = (character << 6) | (bytes.get(i++) & 0x3f);
+                }
+            }
+            ++characterCount;
+            int next = this.getNextState(state, character);
+            if (next < 0) {
+                policyViolations |= -next;
+            } else {
+                state = next;
+            }
+        }
+        int returnValue = this.getPolicyViolations(state, policyViolations, characterCount);
+        if (this.blocklist != null && this.blocklist.isBlocked(bytes, offset, length)) {
+            returnValue |= Violation.BLOCKED_WORD.getBit();
+        }
+        return returnValue;
+    }
+
+    /**
+     * Returns the state of the policy after the given character, or the negated bit of its violation. A character
+     * that would exceed a maximum is not counted for any pool, so that the walk continues from the same state.
+     */
+    private int getNextState(int state, int character) {
+        int group = (character < this.groupOfCharacter.length) ? this.groupOfCharacter[character] : -1;
+        if (group < 0) {
+            return -Violation.FOREIGN_CHARACTER.getBit();
+        }
+        int next = this.policy.getNextState(state, group);
+        return (next >= 0) ? next : -Violation.EXCEEDED_MAXIMUM.getBit();
+    }
+
+    private int getPolicyViolations(int state, int policyViolations, int length) {
+        int returnValue = this.getViolations(0, length) | policyViolations;
+        if (!this.policy.isAccepting(state)) {
+            returnValue |= Violation.MISSED_MINIMUM.getBit();
+        }
+        return returnValue;
+    }
+
+    private int getViolations(int includedClasses, int length) {
+        int missingClasses = this.requiredClasses & ~includedClasses;
+        int forbiddenClasses = this.forbiddenClasses & includedClasses;
+        int returnValue = missingClasses | (forbiddenClasses << Violation.FORBIDDEN_UPPERCASE.ordinal());
+        if (length < this.minimumLength) {
+            returnValue |= Violation.TOO_SHORT.getBit();
+        }
+        return returnValue;
+    }
+
+    private static int[] createGroupOfCharacter(PasswordPolicy policy) {
+        char[] alphabet = policy.getCharacters();
+        int largestCharacter = 0;
+        for (char character : alphabet) {
+            largestCharacter = Math.max(largestCharacter, character);
+        }
+        int[] returnValue = new int[largestCharacter + 1];
+        Arrays.fill(returnValue, -1);
+        for (int group = 0; group < policy.getGroupCount(); ++group) {
+            for (char character : policy.getGroup(group)) {
+                returnValue[character] = group;
+            }
+        }
+        return returnValue;
+    }
+
+    private static byte[] createCharacterClasses() {
+        byte[] returnValue = new byte[256];
+        for (int character = 0; character < returnValue.length; ++character) {
+            if (character < ' ' || character > '~') {
+                returnValue[character] = CLASS_INVALID;
+            } else {
+                // The space separates the words of passphrases and belongs to no class
+                returnValue[character] = (byte) PasswordFactory.getCharacterClasses((char) character);
+            }
+        }
+        return returnValue;
+    }
+}
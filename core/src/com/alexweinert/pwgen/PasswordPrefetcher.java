@@ -0,0 +1,165 @@
+package com.alexweinert.pwgen;
+
+/**
+ * Keeps a bounded number of ready passwords, which are generated in advance on a background thread.
+ *
+ * Taking a password with next() only removes it from a ring buffer, unless the buffer has been drained, in which case
+ * the password is generated on the calling thread. next(IPasswordCallback) never generates on the calling thread, but
+ * waits for the background thread instead. Setting a new factory discards all passwords of the previous one, so
+ * neither returns a password that does not match the current configuration.
+ */
+public class PasswordPrefetcher {
+
+    private final int length;
+
+    /** Ready passwords, stored from position head on in order of generation */
+    private final String[] buffer;
+    private int head = 0;
+    private int size = 0;
+
+    private PasswordFactory factory;
+    /** Incremented whenever the factory changes, so that passwords of a previous factory are not stored */
+    private long factoryVersion = 0;
+
+    private Thread producer = null;
+
+    /** The callback waiting for the next password the producer generates, or null if there is none */
+    private IPasswordCallback pendingCallback = null;
+
+    /** Creates a prefetcher that keeps up to capacity passwords of the given length from factory */
+    public PasswordPrefetcher(PasswordFactory factory, int capacity, int length) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.factory = factory;
+        this.buffer = new String[capacity];
+        this.length = length;
+    }
+
+    /** Starts filling the buffer in the background */
+    public synchronized void start() {
+        if (this.producer != null) {
+            return;
+        }
+        this.producer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "PasswordPrefetcher");
+        this.producer.setDaemon(true);
+        this.producer.setPriority(Thread.MIN_PRIORITY);
+        this.producer.start();
+    }
+
+    /** Stops filling the buffer. Passwords that are already stored can still be taken */
+    public synchronized void stop() {
+        if (this.producer != null) {
+            this.producer.interrupt();
+            this.producer = null;
+        }
+    }
+
+    /** Discards all stored passwords and fills the buffer from the given factory from now on */
+    public synchronized void setFactory(PasswordFactory factory) {
+        this.factory = factory;
+        ++this.factoryVersion;
+        this.clear();
+        this.notifyAll();
+    }
+
+    /** Returns a stored password, or generates one on the calling thread if none is stored */
+    public String next() {
+        PasswordFactory currentFactory;
+        synchronized (this) {
+            if (this.size > 0) {
+                return this.take();
+            }
+            currentFactory = this.factory;
+        }
+        return currentFactory.getPassword(this.length);
+    }
+
+    /**
+     * Passes a stored password to callback on the calling thread, or, if none is stored, the next password the
+     * background thread generates from the current factory on that thread. Only the latest request waits for the
+     * background thread, an earlier one that is still waiting is dropped.
+     */
+    public void next(IPasswordCallback callback) {
+        String password;
+        synchronized (this) {
+            if (this.size == 0) {
+                this.pendingCallback = callback;
+                return;
+            }
+            password = this.take();
+        }
+        callback.onPassword(password);
+    }
+
+    /** Removes and returns the oldest stored password. The caller must hold the lock and make sure there is one */
+    private String take() {
+        String returnValue = this.buffer[this.head];
+        this.buffer[this.head] = null;
+        this.head = (this.head + 1) % this.buffer.length;
+        --this.size;
+        this.notifyAll();
+        return returnValue;
+    }
+
+    /** Returns the number of stored passwords */
+    public synchronized int getAvailableCount() {
+        return this.size;
+    }
+
+    private void clear() {
+        for (int i = 0; i < this.size; ++i) {
+            this.buffer[(this.head + i) % this.buffer.length] = null;
+        }
+        this.head = 0;
+        this.size = 0;
+    }
+
+    private void produce() {
+        Thread currentThread = Thread.currentThread();
+        try {
+            while (true) {
+                PasswordFactory currentFactory;
+                long version;
+                synchronized (this) {
+                    while (this.size == this.buffer.length && this.producer == currentThread) {
+                        this.wait();
+                    }
+                    if (this.producer != currentThread) {
+                        return;
+                    }
+                    currentFactory = this.factory;
+                    version = this.factoryVersion;
+                }
+
+                // Generate without holding the lock, so that next() does not wait for the factory
+                String password = currentFactory.getPassword(this.length);
+
+                IPasswordCallback callback = null;
+                synchronized (this) {
+                    if (version != this.factoryVersion) {
+                        continue;
+                    }
+                    if (this.pendingCallback != null) {
+                        callback = this.pendingCallback;
+                        this.pendingCallback = null;
+                    } else if (this.size < this.buffer.length) {
+                        this.buffer[(this.head + this.size) % this.buffer.length] = password;
+                        ++this.size;
+                    }
+                }
+                if (callback != null) {
+                    callback.onPassword(password);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped while waiting for free space
+        }
+    }
+}
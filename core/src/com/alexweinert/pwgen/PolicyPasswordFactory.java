@@ -0,0 +1,203 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+
+/**
+ * Creates random passwords from the character pools of a PasswordPolicy.
+ *
+ * Passwords are built in a single pass: Each position is filled from a group of characters with probability
+ * proportional to the number of passwords that can still satisfy the policy after that choice. The passwords are thus
+ * distributed uniformly over all passwords that satisfy the minimums and maximums of the pools, and none is discarded
+ * unless it contains a blocked word. Once no pool constrains the rest of a password, the remaining characters are drawn
+ * from the whole alphabet at once.
+ */
+public class PolicyPasswordFactory extends PasswordFactory {
+
+    private final PasswordPolicy policy;
+
+    /** For each group of the policy, the fraction of the alphabet that belongs to it */
+    private final double[] groupFractions;
+    /** Cache of getCompletionProbabilities for the longest password requested so far */
+    private volatile double[] completionProbabilities = new double[0];
+
+    public PolicyPasswordFactory(IRandom randomGenerator, TriValueBoolean mayIncludeAmbiguous,
+            TriValueBoolean mayIncludeVowels, TriValueBoolean mustIncludeSymbols, TriValueBoolean mustIncludeDigits,
+            TriValueBoolean mustIncludeUppercase, TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics,
+            BlocklistFilter blocklist, PasswordPolicy policy) {
+        super(randomGenerator, mayIncludeAmbiguous, mayIncludeVowels, mustIncludeSymbols, mustIncludeDigits,
+                mustIncludeUppercase, includeLowercase, metrics, blocklist);
+        this.policy = policy;
+        this.groupFractions = new double[policy.getGroupCount()];
+        for (int group = 0; group < this.groupFractions.length; ++group) {
+            this.groupFractions[group] = (double) policy.getGroup(group).length / policy.getCharacters().length;
+        }
+    }
+
+    /** Returns the policy the passwords of this factory satisfy */
+    PasswordPolicy getPolicy() {
+        return this.policy;
+    }
+
+    @Override
+    protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+        double[] completions = this.getCompletionProbabilities(length);
+        if (completions[length * this.policy.getStateCount()] == 0) {
+            throw new IllegalArgumentException("No password of length " + length + " satisfies the policy");
+        }
+
+        // Blocked words are rare, so they are still discarded
+        int rejectedPasswords = 0;
+        this.generatePasswordInSinglePass(random, destination, offset, length, completions);
+        while (this.isBlocked(destination, offset, length)) {
+            ++rejectedPasswords;
+            this.checkRejectedPasswords(rejectedPasswords, length);
+            this.generatePasswordInSinglePass(random, destination, offset, length, completions);
+        }
+        this.countRejectedPasswords(rejectedPasswords);
+        return length;
+    }
+
+    private void generatePasswordInSinglePass(IRandom random, char[] destination, int offset, int length,
+            double[] completions) {
+        int stateCount = this.policy.getStateCount();
+        char[] alphabet = this.policy.getCharacters();
+        int state = 0;
+        for (int position = 0; position < length; ++position) {
+            if (this.policy.isUnconstrained(state)) {
+                destination[offset + position] = alphabet[random.getRandomInt(alphabet.length)];
+                continue;
+            }
+
+            int remaining = length - position;
+            int nextRow = (remaining - 1) * stateCount;
+            // Each row is scaled on its own, so the total is summed from the next row instead of read from this one
+            double total = 0;
+            for (int group = 0; group < this.groupFractions.length; ++group) {
+                int next = this.policy.getNextState(state, group);
+                if (next >= 0) {
+                    total += this.groupFractions[group] * completions[nextRow + next];
+                }
+            }
+            double target = getRandomDouble(random) * total;
+            int chosenGroup = -1;
+            for (int group = 0; group < this.groupFractions.length; ++group) {
+                int next = this.policy.getNextState(state, group);
+                if (next < 0 || completions[nextRow + next] == 0) {
+                    continue;
+                }
+                // Keep the last possible group in case rounding leaves target slightly above 0
+                chosenGroup = group;
+                target -= this.groupFractions[group] * completions[nextRow + next];
+                if (target < 0) {
+                    break;
+                }
+            }
+
+            char[] characters = this.policy.getGroup(chosenGroup);
+            destination[offset + position] = characters[random.getRandomInt(characters.length)];
+            state = this.policy.getNextState(state, chosenGroup);
+        }
+    }
+
+    /**
+     * Each segment satisfies the minimums of the policy on its own. The maximums would have to hold for the whole
+     * password, which segments generated independently cannot guarantee.
+     *
+     * @throws IllegalStateException
+     *             if the password is longer than one segment and a pool has a maximum
+     */
+    @Override
+    protected int generateSegment(IRandom random, char[] destination, long position, int length, long totalLength,
+            int missingClasses) {
+        if (totalLength > SEGMENT_LENGTH && this.policy.hasMaximum()) {
+            throw new IllegalStateException("The maximums of the policy cannot be kept in a password of length "
+                    + totalLength);
+        }
+        return super.generateSegment(random, destination, position, length, totalLength, missingClasses);
+    }
+
+    /**
+     * Returns, for every remaining length r in [0, length] and every state s, the probability that r uniformly picked
+     * characters of the alphabet lead from s to an accepting state, scaled by a factor per r. The entry for (r, s) is
+     * stored at index r * stateCount + s. The returned array may cover more than length.
+     *
+     * If a pool has a maximum, the probabilities shrink exponentially with r and would eventually underflow. Each row
+     * is thus scaled so that its largest entry is 1, which keeps the ratios within a row, and thus the choices of
+     * generatePasswordInSinglePass, intact.
+     */
+    private double[] getCompletionProbabilities(int length) {
+        int stateCount = this.policy.getStateCount();
+        double[] cached = this.completionProbabilities;
+        if (cached.length >= (length + 1) * stateCount) {
+            return cached;
+        }
+
+        double[] returnValue = new double[(length + 1) * stateCount];
+        for (int state = 0; state < stateCount; ++state) {
+            returnValue[state] = this.policy.isAccepting(state) ? 1 : 0;
+        }
+        for (int remaining = 1; remaining <= length; ++remaining) {
+            int row = remaining * stateCount;
+            int previousRow = row - stateCount;
+            for (int state = 0; state < stateCount; ++state) {
+                double probability = 0;
+                for (int group = 0; group < this.groupFractions.length; ++group) {
+                    int next = this.policy.getNextState(state, group);
+                    if (next >= 0) {
+                        probability += this.groupFractions[group] * returnValue[previousRow + next];
+                    }
+                }
+                returnValue[row + state] = probability;
+            }
+            double maximum = 0;
+            for (int state = 0; state < stateCount; ++state) {
+                maximum = Math.max(maximum, returnValue[row + state]);
+            }
+            for (int state = 0; maximum > 0 && state < stateCount; ++state) {
+                returnValue[row + state] /= maximum;
+            }
+        }
+        this.completionProbabilities = returnValue;
+        return returnValue;
+    }
+
+    /** Counts the passwords that end in each state, one character at a time */
+    @Override
+    protected BigInteger[] countPasswords(int maximumLength) {
+        int stateCount = this.policy.getStateCount();
+        BigInteger[] groupSizes = new BigInteger[this.groupFractions.length];
+        for (int group = 0; group < groupSizes.length; ++group) {
+            groupSizes[group] = BigInteger.valueOf(this.policy.getGroup(group).length);
+        }
+
+        BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+        BigInteger[] counts = new BigInteger[stateCount];
+        for (int state = 0; state < stateCount; ++state) {
+            counts[state] = (state == 0) ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        for (int length = 0; length <= maximumLength; ++length) {
+            BigInteger count = BigInteger.ZERO;
+            BigInteger[] nextCounts = new BigInteger[stateCount];
+            for (int state = 0; state < stateCount; ++state) {
+                nextCounts[state] = BigInteger.ZERO;
+            }
+            for (int state = 0; state < stateCount; ++state) {
+                if (counts[state].signum() == 0) {
+                    continue;
+                }
+                if (this.policy.isAccepting(state)) {
+                    count = count.add(counts[state]);
+                }
+                for (int group = 0; group < groupSizes.length; ++group) {
+                    int next = this.policy.getNextState(state, group);
+                    if (next >= 0) {
+                        nextCounts[next] = nextCounts[next].add(counts[state].multiply(groupSizes[group]));
+                    }
+                }
+            }
+            returnValue[length] = count;
+            counts = nextCounts;
+        }
+        return returnValue;
+    }
+}
@@ -0,0 +1,560 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+public class PronouncablePasswordFactory extends PasswordFactory {
+
+    static class pwElement {
+        final String str;
+        final boolean isConsonant;
+        final boolean isDiphtong;
+        final boolean notFirst;
+        /** Relative frequency of the element in English text, used if elements are weighted by frequency */
+        final int weight;
+
+        private pwElement(String str, boolean isConsonant, boolean isDiphtong, boolean notFirst, int weight) {
+            this.str = str;
+            this.isConsonant = isConsonant;
+            this.isDiphtong = isDiphtong;
+            this.notFirst = notFirst;
+            this.weight = weight;
+        }
+    }
+
+    private static final pwElement[] elements = { new pwElement("a", false, false, false, 82),// { "a", VOWEL },
+            new pwElement("ae", false, true, false, 2), // { "ae", VOWEL | DIPTHONG },
+            new pwElement("ah", false, true, false, 3), // { "ah", VOWEL | DIPTHONG },
+            new pwElement("ai", false, true, false, 7), // { "ai", VOWEL | DIPTHONG },
+            new pwElement("b", true, false, false, 15), // { "b", CONSONANT },
+            new pwElement("c", true, false, false, 28), // { "c", CONSONANT },
+            new pwElement("ch", true, true, false, 12), // { "ch", CONSONANT | DIPTHONG },
+            new pwElement("d", true, false, false, 43), // { "d", CONSONANT },
+            new pwElement("e", false, false, false, 127), // { "e", VOWEL },
+            new pwElement("ee", false, true, false, 9), // { "ee", VOWEL | DIPTHONG },
+            new pwElement("ei", false, true, false, 4), // { "ei", VOWEL | DIPTHONG },
+            new pwElement("f", true, false, false, 22), // { "f", CONSONANT },
+            new pwElement("g", true, false, false, 20), // { "g", CONSONANT },
+            new pwElement("gh", true, true, true, 3), // { "gh", CONSONANT | DIPTHONG | NOT_FIRST },
+            new pwElement("h", true, false, false, 61), // { "h", CONSONANT },
+            new pwElement("i", false, false, false, 70), // { "i", VOWEL },
+            new pwElement("ie", false, true, false, 5), // { "ie", VOWEL | DIPTHONG },
+            new pwElement("j", true, false, false, 2), // { "j", CONSONANT },
+            new pwElement("k", true, false, false, 8), // { "k", CONSONANT },
+            new pwElement("l", true, false, false, 40), // { "l", CONSONANT },
+            new pwElement("m", true, false, false, 24), // { "m", CONSONANT },
+            new pwElement("n", true, false, false, 67), // { "n", CONSONANT },
+            new pwElement("ng", true, true, true, 10), // { "ng", CONSONANT | DIPTHONG | NOT_FIRST },
+            new pwElement("o", false, false, false, 75), // { "o", VOWEL },
+            new pwElement("oh", false, true, false, 2), // { "oh", VOWEL | DIPTHONG },
+            new pwElement("oo", false, true, false, 6), // { "oo", VOWEL | DIPTHONG},
+            new pwElement("p", true, false, false, 19), // { "p", CONSONANT },
+            new pwElement("ph", true, true, false, 2), // { "ph", CONSONANT | DIPTHONG },
+            new pwElement("qu", true, true, false, 2), // { "qu", CONSONANT | DIPTHONG},
+            new pwElement("r", true, false, false, 60), // { "r", CONSONANT },
+            new pwElement("s", true, false, false, 63), // { "s", CONSONANT },
+            new pwElement("sh", true, true, false, 8), // { "sh", CONSONANT | DIPTHONG},
+            new pwElement("t", true, false, false, 91), // { "t", CONSONANT },
+            new pwElement("th", true, true, false, 27), // { "th", CONSONANT | DIPTHONG},
+            new pwElement("u", false, false, false, 28), // { "u", VOWEL },
+            new pwElement("v", true, false, false, 10), // { "v", CONSONANT },
+            new pwElement("w", true, false, false, 24), // { "w", CONSONANT },
+            new pwElement("x", true, false, false, 2), // { "x", CONSONANT },
+            new pwElement("y", true, false, false, 20), // { "y", CONSONANT },
+            new pwElement("z", true, false, false, 1), // { "z", CONSONANT }
+    };
+
+    /** The length of the longest element */
+    private static final int maximumElementLength = getMaximumElementLength();
+
+    /**
+     * The admissable elements for each state of the generation, indexed by getPartitionIndex. Picking uniformly from a
+     * partition is equivalent to picking from all elements until one is admissable in that state
+     */
+    private static final pwElement[][] partitions = createPartitions();
+
+    /**
+     * Alias tables for picking from each partition with probability proportional to the weights of its elements by
+     * Vose's alias method: For a partition of n elements with the sum of weights w, a value x drawn uniformly from
+     * [0, n * w) picks the element x / w if x % w is less than its threshold, and the alias of that element otherwise
+     */
+    private static final int[][] aliasThresholds = new int[partitions.length][];
+    private static final int[][] aliases = new int[partitions.length][];
+    /** The sum of the weights of the elements of each partition */
+    private static final int[] partitionWeights = new int[partitions.length];
+
+    static {
+        createAliasTables();
+    }
+
+    /** True if elements are picked by their weight instead of uniformly */
+    private final boolean weightedElements;
+
+    /** Inputs of the automaton built by countPasswords: lowercase letters, uppercase letters, any digit, any symbol */
+    private static final int DIGIT_INPUT = 52;
+    private static final int SYMBOL_INPUT = 53;
+    private static final int INPUT_COUNT = 54;
+
+    public PronouncablePasswordFactory(IRandom randomGenerator, TriValueBoolean mayIncludeAmbiguous,
+            TriValueBoolean mayIncludeVowels, TriValueBoolean mustIncludeSymbols, TriValueBoolean mustIncludeDigits,
+            TriValueBoolean mustIncludeUppercase, TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics,
+            BlocklistFilter blocklist, boolean weightedElements) {
+        super(randomGenerator, mayIncludeAmbiguous, mayIncludeVowels, mustIncludeSymbols, mustIncludeDigits,
+                mustIncludeUppercase, includeLowercase, metrics, blocklist);
+        this.weightedElements = weightedElements;
+    }
+
+    @Override
+    protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+        int end = offset + length;
+        int rejectedPasswords = 0;
+        boolean isAdmissable;
+        do {
+            int position = offset;
+            boolean isFirst = true;
+            boolean shouldBeConsonant = (random.getRandomBits(1) == 0);
+            pwElement previous = null;
+
+            while (position < end) {
+                boolean afterVowel = (previous != null && !previous.isConsonant);
+                pwElement candidateElement = this.getAdmissableElement(random, shouldBeConsonant, isFirst,
+                        afterVowel, end - position);
+
+                // Ok, we found an element which matches our criteria, let's do it!
+                String toAdd = candidateElement.str;
+                toAdd.getChars(0, toAdd.length(), destination, position);
+                if (this.includeUppercase == TriValueBoolean.MUST && (isFirst || candidateElement.isConsonant)
+                        && random.getRandomInt(10) < 2) {
+                    destination[position] = Character.toUpperCase(destination[position]);
+                }
+                position += toAdd.length();
+
+                // If we are at the correct length, do not continue
+                if (position >= end) {
+                    break;
+                }
+
+                if (this.includeDigits == TriValueBoolean.MUST) {
+                    if (!isFirst && random.getRandomInt(10) < 3) {
+                        destination[position++] = this.getDigit(random);
+                        // Restart the generation
+                        isFirst = true;
+                        previous = null;
+                        shouldBeConsonant = (random.getRandomBits(1) == 0);
+                        continue;
+                    }
+                }
+
+                if (this.includeSymbols == TriValueBoolean.MUST) {
+                    if (!isFirst && random.getRandomInt(10) < 2) {
+                        destination[position++] = this.getSymbol(random);
+                    }
+                }
+
+                if (shouldBeConsonant) {
+                    shouldBeConsonant = false;
+                } else {
+                    if ((previous != null && !previous.isConsonant) || candidateElement.isDiphtong
+                            || random.getRandomInt(10) < 3) {
+                        shouldBeConsonant = true;
+                    } else {
+                        shouldBeConsonant = false;
+                    }
+                }
+
+                previous = candidateElement;
+                isFirst = false;
+            }
+
+            isAdmissable = this.isAdmissablePassword(destination, offset, length);
+            if (!isAdmissable) {
+                ++rejectedPasswords;
+                this.checkRejectedPasswords(rejectedPasswords, length);
+            }
+        } while (!isAdmissable);
+        this.countRejectedPasswords(rejectedPasswords);
+
+        return length;
+    }
+
+    private char getDigit(IRandom random) {
+        char returnValue = pw_digits.charAt(random.getRandomInt(pw_digits.length()));
+        // If this may include ambiguous characters, one iteration is enough
+        while (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(returnValue, CLASS_AMBIGUOUS)) {
+            this.countRejectedCharacter();
+            returnValue = pw_digits.charAt(random.getRandomInt(pw_digits.length()));
+        }
+        return returnValue;
+    }
+
+    private char getSymbol(IRandom random) {
+        char returnValue = pw_symbols.charAt(random.getRandomInt(pw_symbols.length()));
+        // If this may include ambiguous characters, one iteration is enough
+        while (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(returnValue, CLASS_AMBIGUOUS)) {
+            this.countRejectedCharacter();
+            returnValue = pw_symbols.charAt(random.getRandomInt(pw_symbols.length()));
+        }
+        return returnValue;
+    }
+
+    /** Returns a random element that may be appended in the given state of the generation */
+    private pwElement getAdmissableElement(IRandom random, boolean shouldBeConsonant, boolean isFirst,
+            boolean afterVowel, int remainingLength) {
+        int partition = getPartitionIndex(shouldBeConsonant, isFirst, afterVowel, remainingLength);
+        pwElement[] admissable = partitions[partition];
+        if (!this.weightedElements) {
+            return admissable[random.getRandomInt(admissable.length)];
+        }
+
+        // A single draw picks both the column of the alias table and the position within it
+        int weight = partitionWeights[partition];
+        int value = random.getRandomInt(admissable.length * weight);
+        int index = value / weight;
+        if (value % weight >= aliasThresholds[partition][index]) {
+            index = aliases[partition][index];
+        }
+        return admissable[index];
+    }
+
+    /** Returns the elements passwords are built from, e.g., to model the generation */
+    static pwElement[] getElements() {
+        return elements.clone();
+    }
+
+    private static int getPartitionIndex(boolean shouldBeConsonant, boolean isFirst, boolean afterVowel,
+            int remainingLength) {
+        int index = getStateIndex(shouldBeConsonant, isFirst, afterVowel);
+        return index * maximumElementLength + Math.min(remainingLength, maximumElementLength) - 1;
+    }
+
+    private static int getMaximumElementLength() {
+        int returnValue = 0;
+        for (pwElement element : elements) {
+            returnValue = Math.max(returnValue, element.str.length());
+        }
+        return returnValue;
+    }
+
+    private static pwElement[][] createPartitions() {
+        pwElement[][] returnValue = new pwElement[8 * maximumElementLength][];
+        for (int state = 0; state < 8; ++state) {
+            boolean shouldBeConsonant = (state & 4) != 0, isFirst = (state & 2) != 0, afterVowel = (state & 1) != 0;
+            for (int remainingLength = 1; remainingLength <= maximumElementLength; ++remainingLength) {
+                List<pwElement> admissable = new ArrayList<pwElement>();
+                for (pwElement element : elements) {
+                    if (isAdmissableElement(element, shouldBeConsonant, isFirst, afterVowel, remainingLength)) {
+                        admissable.add(element);
+                    }
+                }
+                int index = getPartitionIndex(shouldBeConsonant, isFirst, afterVowel, remainingLength);
+                returnValue[index] = admissable.toArray(new pwElement[admissable.size()]);
+            }
+        }
+        return returnValue;
+    }
+
+    private static void createAliasTables() {
+        for (int partition = 0; partition < partitions.length; ++partition) {
+            pwElement[] admissable = partitions[partition];
+            int count = admissable.length;
+            int weight = 0;
+            for (pwElement element : admissable) {
+                weight += element.weight;
+            }
+
+            // Scale the weights by count, so that each column of the table holds exactly weight
+            int[] scaledWeights = new int[count];
+            int[] smaller = new int[count], larger = new int[count];
+            int smallerCount = 0, largerCount = 0;
+            for (int i = 0; i < count; ++i) {
+                scaledWeights[i] = admissable[i].weight * count;
+                if (scaledWeights[i] < weight) {
+                    smaller[smallerCount++] = i;
+                } else {
+                    larger[largerCount++] = i;
+                }
+            }
+
+            int[] thresholds = new int[count], partitionAliases = new int[count];
+            while (smallerCount > 0 && largerCount > 0) {
+                int small = smaller[--smallerCount], large = larger[--largerCount];
+                // Fill the rest of the column of small with large
+                thresholds[small] = scaledWeights[small];
+                partitionAliases[small] = large;
+                scaledWeights[large] -= weight - scaledWeights[small];
+                if (scaledWeights[large] < weight) {
+                    smaller[smallerCount++] = large;
+                } else {
+                    larger[largerCount++] = large;
+                }
+            }
+            // The remaining columns are full, since the weights are integers
+            while (largerCount > 0) {
+                int large = larger[--largerCount];
+                thresholds[large] = weight;
+                partitionAliases[large] = large;
+            }
+
+            aliasThresholds[partition] = thresholds;
+            aliases[partition] = partitionAliases;
+            partitionWeights[partition] = weight;
+        }
+    }
+
+    private static boolean isAdmissableElement(pwElement element, boolean shouldBeConsonant, boolean isFirst,
+            boolean afterVowel, int remainingLength) {
+        if (shouldBeConsonant != element.isConsonant) {
+            return false;
+        }
+        // Make sure that we do not pick an inadmissable element as first element
+        if (isFirst && element.notFirst) {
+            return false;
+        }
+        // Don't allow a vowel followed by a vowel/diphtong
+        if (afterVowel && !element.isConsonant && element.isDiphtong) {
+            return false;
+        }
+        // Don't allow us to overflow the buffer
+        if (element.str.length() > remainingLength) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the different passwords by running the generation on an automaton over the generated characters.
+     *
+     * Different sequences of random decisions may create the same password, e.g., "ae" is a single element, but also
+     * "a" followed by "e". Counting sequences of decisions thus overestimates the number of passwords. Instead, the
+     * states of the generation and the characters appended in each step form a nondeterministic automaton, which is
+     * turned into a deterministic one by the subset construction. Every password then corresponds to exactly one path
+     * through the deterministic automaton, so the passwords can be counted along with the required classes they
+     * include.
+     */
+    @Override
+    protected BigInteger[] countPasswords(int maximumLength) {
+        List<BitSet[]> transitions = new ArrayList<BitSet[]>();
+        BitSet accepting = new BitSet();
+        this.createGenerationAutomaton(transitions, accepting);
+
+        int requiredClasses = 0;
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_UPPERCASE;
+        }
+        if (this.includeDigits == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_DIGIT;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_SYMBOL;
+        }
+        int[] inputClasses = new int[INPUT_COUNT];
+        BigInteger[] inputWeights = new BigInteger[INPUT_COUNT];
+        for (int input = 0; input < DIGIT_INPUT; ++input) {
+            inputClasses[input] = (input < 26 ? 0 : CLASS_UPPERCASE) & requiredClasses;
+            inputWeights[input] = BigInteger.ONE;
+        }
+        inputClasses[DIGIT_INPUT] = CLASS_DIGIT & requiredClasses;
+        inputWeights[DIGIT_INPUT] = BigInteger.valueOf(this.getAdmissableCount(pw_digits));
+        inputClasses[SYMBOL_INPUT] = CLASS_SYMBOL & requiredClasses;
+        inputWeights[SYMBOL_INPUT] = BigInteger.valueOf(this.getAdmissableCount(pw_symbols));
+
+        // Subset construction, starting with either kind of element
+        Map<BitSet, Integer> subsetIds = new HashMap<BitSet, Integer>();
+        List<BitSet> subsets = new ArrayList<BitSet>();
+        List<int[]> subsetTransitions = new ArrayList<int[]>();
+        BitSet start = new BitSet();
+        start.set(getStateIndex(true, true, false));
+        start.set(getStateIndex(false, true, false));
+        subsetIds.put(start, 0);
+        subsets.add(start);
+        for (int subset = 0; subset < subsets.size(); ++subset) {
+            int[] targets = new int[INPUT_COUNT];
+            for (int input = 0; input < INPUT_COUNT; ++input) {
+                BitSet target = new BitSet();
+                BitSet states = subsets.get(subset);
+                for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1)) {
+                    if (transitions.get(state)[input] != null) {
+                        target.or(transitions.get(state)[input]);
+                    }
+                }
+                if (target.isEmpty()) {
+                    targets[input] = -1;
+                    continue;
+                }
+                Integer id = subsetIds.get(target);
+                if (id == null) {
+                    id = subsets.size();
+                    subsetIds.put(target, id);
+                    subsets.add(target);
+                }
+                targets[input] = id;
+            }
+            subsetTransitions.add(targets);
+        }
+
+        // Count the paths of each length, separately for each set of required classes they include
+        int classCount = requiredClasses + 1;
+        BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+        BigInteger[] counts = new BigInteger[subsets.size() * classCount];
+        counts[0] = BigInteger.ONE;
+        for (int length = 0; length <= maximumLength; ++length) {
+            BigInteger count = BigInteger.ZERO;
+            for (int subset = 0; subset < subsets.size(); ++subset) {
+                int index = subset * classCount + requiredClasses;
+                if (counts[index] != null && subsets.get(subset).intersects(accepting)) {
+                    count = count.add(counts[index]);
+                }
+            }
+            returnValue[length] = count;
+            if (length == maximumLength) {
+                break;
+            }
+
+            BigInteger[] nextCounts = new BigInteger[counts.length];
+            for (int index = 0; index < counts.length; ++index) {
+                if (counts[index] == null) {
+                    continue;
+                }
+                int[] targets = subsetTransitions.get(index / classCount);
+                for (int input = 0; input < INPUT_COUNT; ++input) {
+                    if (targets[input] < 0 || inputWeights[input].signum() == 0) {
+                        continue;
+                    }
+                    int target = targets[input] * classCount + ((index % classCount) | inputClasses[input]);
+                    BigInteger paths = counts[index].multiply(inputWeights[input]);
+                    nextCounts[target] = (nextCounts[target] == null) ? paths : nextCounts[target].add(paths);
+                }
+            }
+            counts = nextCounts;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Creates the nondeterministic automaton of the generation. The states with index getStateIndex(...) are those
+     * before picking an element. Other states are inside an element, or after an element that may be followed by a
+     * digit or symbol. A password may end in any state except inside an element; these states are set in accepting.
+     */
+    private void createGenerationAutomaton(List<BitSet[]> transitions, BitSet accepting) {
+        Map<String, Integer> stateIds = new HashMap<String, Integer>();
+        for (int state = 0; state < 8; ++state) {
+            transitions.add(new BitSet[INPUT_COUNT]);
+            accepting.set(state);
+        }
+
+        for (int state = 0; state < 8; ++state) {
+            boolean shouldBeConsonant = (state & 4) != 0, isFirst = (state & 2) != 0, afterVowel = (state & 1) != 0;
+            for (pwElement element : elements) {
+                if (!isAdmissableElement(element, shouldBeConsonant, isFirst, afterVowel, maximumElementLength)) {
+                    continue;
+                }
+                BitSet next = this.getNextStates(transitions, accepting, stateIds, shouldBeConsonant, isFirst,
+                        afterVowel, element);
+
+                // Walk the element backwards, so that each character leads to the states after the remaining ones
+                String str = element.str;
+                for (int i = str.length() - 1; i > 0; --i) {
+                    String key = "element " + str.substring(i) + " " + next;
+                    Integer inside = stateIds.get(key);
+                    if (inside == null) {
+                        inside = getNewState(transitions, stateIds, key);
+                        addTransition(transitions, inside, getInput(str.charAt(i)), next);
+                    }
+                    next = new BitSet();
+                    next.set(inside);
+                }
+                addTransition(transitions, state, getInput(str.charAt(0)), next);
+                if (this.includeUppercase == TriValueBoolean.MUST && (isFirst || element.isConsonant)) {
+                    addTransition(transitions, state, getInput(Character.toUpperCase(str.charAt(0))), next);
+                }
+            }
+        }
+    }
+
+    /** Returns the states the generation may be in right after appending the given element in the given state */
+    private BitSet getNextStates(List<BitSet[]> transitions, BitSet accepting, Map<String, Integer> stateIds,
+            boolean shouldBeConsonant, boolean isFirst, boolean afterVowel, pwElement element) {
+        BitSet returnValue = new BitSet();
+        boolean isVowel = !element.isConsonant;
+        if (shouldBeConsonant) {
+            returnValue.set(getStateIndex(false, false, isVowel));
+        } else if (afterVowel || element.isDiphtong) {
+            returnValue.set(getStateIndex(true, false, isVowel));
+        } else {
+            returnValue.set(getStateIndex(true, false, isVowel));
+            returnValue.set(getStateIndex(false, false, isVowel));
+        }
+
+        boolean mayAddDigit = this.includeDigits == TriValueBoolean.MUST;
+        boolean mayAddSymbol = this.includeSymbols == TriValueBoolean.MUST;
+        if (!isFirst && (mayAddDigit || mayAddSymbol)) {
+            String key = "separator " + returnValue;
+            Integer separator = stateIds.get(key);
+            if (separator == null) {
+                separator = getNewState(transitions, stateIds, key);
+                accepting.set(separator);
+                if (mayAddDigit) {
+                    BitSet restart = new BitSet();
+                    restart.set(getStateIndex(true, true, false));
+                    restart.set(getStateIndex(false, true, false));
+                    addTransition(transitions, separator, DIGIT_INPUT, restart);
+                }
+                if (mayAddSymbol) {
+                    addTransition(transitions, separator, SYMBOL_INPUT, (BitSet) returnValue.clone());
+                }
+            }
+            returnValue.set(separator);
+        }
+        return returnValue;
+    }
+
+    private static int getNewState(List<BitSet[]> transitions, Map<String, Integer> stateIds, String key) {
+        int returnValue = transitions.size();
+        transitions.add(new BitSet[INPUT_COUNT]);
+        stateIds.put(key, returnValue);
+        return returnValue;
+    }
+
+    private static void addTransition(List<BitSet[]> transitions, int state, int input, BitSet targets) {
+        BitSet[] stateTransitions = transitions.get(state);
+        if (stateTransitions[input] == null) {
+            stateTransitions[input] = new BitSet();
+        }
+        stateTransitions[input].or(targets);
+    }
+
+    /** Returns the input of the automaton built by countPasswords that appends the given letter */
+    private static int getInput(char letter) {
+        return Character.isUpperCase(letter) ? 26 + (letter - 'A') : letter - 'a';
+    }
+
+    /** Returns the index of the state before picking an element, in the same order as the partitions */
+    private static int getStateIndex(boolean shouldBeConsonant, boolean isFirst, boolean afterVowel) {
+        return (shouldBeConsonant ? 4 : 0) + (isFirst ? 2 : 0) + (afterVowel ? 1 : 0);
+    }
+
+    /** Returns the number of characters from pool that getDigit or getSymbol may return */
+    private int getAdmissableCount(String pool) {
+        int returnValue = 0;
+        for (int i = 0; i < pool.length(); ++i) {
+            if (this.includeAmbiguous != TriValueBoolean.MUSTNOT || !isOfClass(pool.charAt(i), CLASS_AMBIGUOUS)) {
+                ++returnValue;
+            }
+        }
+        return returnValue;
+    }
+
+    public static void main(String[] args) {
+        PasswordFactory factory = (new Builder(new RandomGenerator())).mustIncludeUppercase().mustIncludeDigits()
+                .mustBePronouncable().create();
+        for (int i = 0; i < 20; ++i) {
+            System.out.println(factory.getPassword(8));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexweinert.pwgen;
+
+import java.util.Random;
+
+/**
+ * Returns a random number based on Android's Random-class. getRandomInt returns the same numbers as the Random, while
+ * getRandomBits shares its values as described for BufferedRandomGenerator, so instances are not thread-safe.
+ */
+public class RandomGenerator extends BufferedRandomGenerator {
+
+    final Random randomGenerator;
+
+    public RandomGenerator() {
+        this.randomGenerator = new Random();
+    }
+
+    /** Creates a generator that returns the same sequence of numbers for the same seed */
+    public RandomGenerator(long seed) {
+        this.randomGenerator = new Random(seed);
+    }
+
+    @Override
+    public int getRandomInt(int max) {
+        return this.randomGenerator.nextInt(max);
+    }
+
+    @Override
+    protected long getRandomLong() {
+        return this.randomGenerator.nextLong();
+    }
+
+    @Override
+    public ISplittableRandom split() {
+        return new RandomGenerator(this.randomGenerator.nextLong());
+    }
+
+}
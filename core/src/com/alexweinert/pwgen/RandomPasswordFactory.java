@@ -0,0 +1,368 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+
+public class RandomPasswordFactory extends PasswordFactory {
+
+    /** The pool from which to pick characters during password creation */
+    private final String characterPool;
+
+    /** True if passwords are built in a single pass instead of being discarded until they satisfy the MUST options */
+    private final boolean singlePass;
+
+    /** The characters of the pool that are admissable in a password */
+    private final char[] admissableCharacters;
+    /** The character classes the password must include, one bitmask (CLASS_*) per class */
+    private final int[] requiredClasses;
+    /** For each character class the password must include, the admissable characters of that class */
+    private final char[][] requiredCharacters;
+    /** For each class in requiredCharacters, the fraction of the admissable characters that belong to it */
+    private final double[] requiredFractions;
+    /**
+     * For each set of classes from requiredCharacters (as a bitmask over its indices), the admissable characters that
+     * belong to none of these classes
+     */
+    private final char[][] otherCharacters;
+    /** Cache of getCompletionProbabilities for the longest password requested so far */
+    private volatile double[] completionProbabilities = new double[0];
+
+    public RandomPasswordFactory(IRandom randomGenerator, TriValueBoolean mayIncludeAmbiguous,
+            TriValueBoolean mayIncludeVowels, TriValueBoolean mustIncludeSymbols, TriValueBoolean mustIncludeDigits,
+            TriValueBoolean mustIncludeUppercase, TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics,
+            BlocklistFilter blocklist, boolean singlePass) {
+        super(randomGenerator, mayIncludeAmbiguous, mayIncludeVowels, mustIncludeSymbols, mustIncludeDigits,
+                mustIncludeUppercase, includeLowercase, metrics, blocklist);
+        this.characterPool = this.getCharacters();
+        this.singlePass = singlePass;
+
+        this.admissableCharacters = this.getAdmissableCharacters(0, 0);
+
+        int[] requiredClasses = this.getRequiredClasses();
+        this.requiredClasses = requiredClasses;
+        this.requiredCharacters = new char[requiredClasses.length][];
+        this.requiredFractions = new double[requiredClasses.length];
+        for (int i = 0; i < requiredClasses.length; ++i) {
+            this.requiredCharacters[i] = this.getAdmissableCharacters(requiredClasses[i], 0);
+            this.requiredFractions[i] = (double) this.requiredCharacters[i].length / this.admissableCharacters.length;
+        }
+
+        this.otherCharacters = new char[1 << requiredClasses.length][];
+        for (int missing = 0; missing < this.otherCharacters.length; ++missing) {
+            int excludedClasses = 0;
+            for (int i = 0; i < requiredClasses.length; ++i) {
+                if ((missing & (1 << i)) != 0) {
+                    excludedClasses |= requiredClasses[i];
+                }
+            }
+            this.otherCharacters[missing] = this.getAdmissableCharacters(0, excludedClasses);
+        }
+    }
+
+    @Override
+    protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+        if (this.singlePass) {
+            // Blocked words are rare, so they are still discarded
+            int rejectedPasswords = 0;
+            this.generatePasswordInSinglePass(random, destination, offset, length);
+            while (this.isBlocked(destination, offset, length)) {
+                ++rejectedPasswords;
+                this.checkRejectedPasswords(rejectedPasswords, length);
+                this.generatePasswordInSinglePass(random, destination, offset, length);
+            }
+            this.countRejectedPasswords(rejectedPasswords);
+            return length;
+        }
+
+        int rejectedPasswords = 0;
+        boolean isAdmissable;
+        do {
+            for (int position = offset; position < offset + length; ++position) {
+                destination[position] = this.getAdmissableChar(random);
+            }
+            isAdmissable = this.isAdmissablePassword(destination, offset, length);
+            if (!isAdmissable) {
+                ++rejectedPasswords;
+                this.checkRejectedPasswords(rejectedPasswords, length);
+            }
+        } while (!isAdmissable);
+        this.countRejectedPasswords(rejectedPasswords);
+
+        return length;
+    }
+
+    private String getCharacters() {
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append(pw_lowers);
+        if (this.includeDigits == TriValueBoolean.MUST) {
+            stringBuilder.append(pw_digits);
+        }
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            stringBuilder.append(pw_uppers);
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST) {
+            stringBuilder.append(pw_symbols);
+        }
+
+        return stringBuilder.toString();
+    }
+
+    /** Returns the character classes the password must include, one bitmask per class */
+    private int[] getRequiredClasses() {
+        int count = 0;
+        int[] candidates = new int[3];
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            candidates[count++] = CLASS_UPPERCASE;
+        }
+        if (this.includeDigits == TriValueBoolean.MUST) {
+            candidates[count++] = CLASS_DIGIT;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST) {
+            candidates[count++] = CLASS_SYMBOL;
+        }
+        int[] returnValue = new int[count];
+        System.arraycopy(candidates, 0, returnValue, 0, count);
+        return returnValue;
+    }
+
+    /**
+     * Returns the admissable characters of the pool that belong to one of the included classes and to none of the
+     * excluded classes. If includedClasses is 0, characters of any class are returned
+     */
+    private char[] getAdmissableCharacters(int includedClasses, int excludedClasses) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < this.characterPool.length(); ++i) {
+            char character = this.characterPool.charAt(i);
+            if (this.isAdmissableChar(character) && (includedClasses == 0 || isOfClass(character, includedClasses))
+                    && !isOfClass(character, excludedClasses)) {
+                stringBuilder.append(character);
+            }
+        }
+        return stringBuilder.toString().toCharArray();
+    }
+
+    /**
+     * Creates a password that contains all required character classes without ever discarding a partial password.
+     *
+     * Each position is filled from a required class that is still missing, or from the remaining characters, with
+     * probability proportional to the number of admissable passwords that start with the characters picked so far
+     * followed by that choice. The result is thus distributed exactly like the output of the rejection loop, i.e.,
+     * uniformly over all admissable passwords of the given length.
+     */
+    private void generatePasswordInSinglePass(IRandom random, char[] destination, int offset, int length) {
+        int stateCount = this.otherCharacters.length;
+        int allMissing = stateCount - 1;
+        double[] completions = this.getCompletionProbabilities(length);
+        if (completions[length * stateCount + allMissing] == 0) {
+            throw new IllegalArgumentException("No password of length " + length
+                    + " can include all required character classes");
+        }
+
+        int missing = allMissing;
+        for (int position = 0; position < length; ++position) {
+            if (missing == 0) {
+                destination[offset + position] = this.getRandomCharacter(random, this.admissableCharacters);
+                continue;
+            }
+
+            int remaining = length - position;
+            int nextRow = (remaining - 1) * stateCount;
+            double target = getRandomDouble(random) * completions[remaining * stateCount + missing];
+
+            char[] pickFrom = this.otherCharacters[missing];
+            int nextMissing = missing;
+            for (int i = 0; i < this.requiredCharacters.length; ++i) {
+                if ((missing & (1 << i)) == 0) {
+                    continue;
+                }
+                target -= this.requiredFractions[i] * completions[nextRow + (missing & ~(1 << i))];
+                if (target < 0 || pickFrom.length == 0) {
+                    pickFrom = this.requiredCharacters[i];
+                    nextMissing = missing & ~(1 << i);
+                    if (target < 0) {
+                        break;
+                    }
+                }
+            }
+
+            destination[offset + position] = this.getRandomCharacter(random, pickFrom);
+            missing = nextMissing;
+        }
+    }
+
+    /**
+     * Returns, for every remaining length r in [0, length] and every set of missing required classes m, the
+     * probability that r uniformly picked admissable characters contain all classes in m. The entry for (r, m) is
+     * stored at index r * otherCharacters.length + m. The returned array may cover more than length.
+     */
+    private double[] getCompletionProbabilities(int length) {
+        int stateCount = this.otherCharacters.length;
+        double[] cached = this.completionProbabilities;
+        if (cached.length >= (length + 1) * stateCount) {
+            return cached;
+        }
+
+        double[] returnValue = new double[(length + 1) * stateCount];
+        returnValue[0] = 1;
+        for (int remaining = 1; remaining <= length; ++remaining) {
+            int row = remaining * stateCount;
+            int previousRow = row - stateCount;
+            for (int missing = 0; missing < stateCount; ++missing) {
+                double probability = 0;
+                double otherFraction = 1;
+                for (int i = 0; i < this.requiredCharacters.length; ++i) {
+                    if ((missing & (1 << i)) != 0) {
+                        probability += this.requiredFractions[i] * returnValue[previousRow + (missing & ~(1 << i))];
+                        otherFraction -= this.requiredFractions[i];
+                    }
+                }
+                probability += otherFraction * returnValue[previousRow + missing];
+                returnValue[row + missing] = probability;
+            }
+        }
+        this.completionProbabilities = returnValue;
+        return returnValue;
+    }
+
+    /**
+     * Continues a password of totalLength characters exactly like generatePasswordInSinglePass would, so that long
+     * passwords are distributed uniformly over all admissable ones as well. Instead of a table over every remaining
+     * length, the completion probabilities are computed in closed form, which is only needed until all required
+     * classes are included, i.e., usually for the first few characters.
+     */
+    @Override
+    protected int generateSegment(IRandom random, char[] destination, long position, int length, long totalLength,
+            int missingClasses) {
+        int missing = 0;
+        for (int i = 0; i < this.requiredClasses.length; ++i) {
+            if ((missingClasses & this.requiredClasses[i]) != 0) {
+                missing |= 1 << i;
+            }
+        }
+        if (missing != 0 && this.getCompletionProbability(totalLength - position, missing) <= 0) {
+            throw new IllegalArgumentException("No password of length " + totalLength
+                    + " can include all required character classes");
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (missing == 0) {
+                destination[i] = this.getRandomCharacter(random, this.admissableCharacters);
+                continue;
+            }
+
+            long remaining = totalLength - position - i;
+            double target = getRandomDouble(random) * this.getCompletionProbability(remaining, missing);
+
+            char[] pickFrom = this.otherCharacters[missing];
+            int nextMissing = missing;
+            for (int j = 0; j < this.requiredCharacters.length; ++j) {
+                if ((missing & (1 << j)) == 0) {
+                    continue;
+                }
+                target -= this.requiredFractions[j] * this.getCompletionProbability(remaining - 1, missing & ~(1 << j));
+                if (target < 0 || pickFrom.length == 0) {
+                    pickFrom = this.requiredCharacters[j];
+                    nextMissing = missing & ~(1 << j);
+                    if (target < 0) {
+                        break;
+                    }
+                }
+            }
+
+            destination[i] = this.getRandomCharacter(random, pickFrom);
+            missing = nextMissing;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the probability that the given number of uniformly picked admissable characters contain all classes in
+     * missing, by inclusion-exclusion over the sets of classes that are left out. The required classes are disjoint,
+     * so the characters outside a set of classes make up one minus the sum of their fractions.
+     */
+    private double getCompletionProbability(long remaining, int missing) {
+        if (remaining < Integer.bitCount(missing)) {
+            // The sum is zero, but might not be when rounded
+            return 0;
+        }
+        double returnValue = 0;
+        for (int leftOut = missing;; leftOut = (leftOut - 1) & missing) {
+            double otherFraction = 1;
+            for (int i = 0; i < this.requiredCharacters.length; ++i) {
+                if ((leftOut & (1 << i)) != 0) {
+                    otherFraction -= this.requiredFractions[i];
+                }
+            }
+            double probability = Math.pow(Math.max(0, otherFraction), remaining);
+            returnValue += (Integer.bitCount(leftOut) % 2 == 0) ? probability : -probability;
+            if (leftOut == 0) {
+                break;
+            }
+        }
+        return Math.max(0, returnValue);
+    }
+
+    /**
+     * Counts the passwords by inclusion-exclusion over the required classes: For each set of missing classes m, the
+     * passwords that contain none of the classes in m are those built from otherCharacters[m] only.
+     */
+    @Override
+    protected BigInteger[] countPasswords(int maximumLength) {
+        BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+        // For each set of missing classes, the number of passwords of the current length built from otherCharacters
+        BigInteger[] powers = new BigInteger[this.otherCharacters.length];
+        for (int missing = 0; missing < powers.length; ++missing) {
+            powers[missing] = BigInteger.ONE;
+        }
+
+        for (int length = 0; length <= maximumLength; ++length) {
+            BigInteger count = BigInteger.ZERO;
+            for (int missing = 0; missing < powers.length; ++missing) {
+                if (Integer.bitCount(missing) % 2 == 0) {
+                    count = count.add(powers[missing]);
+                } else {
+                    count = count.subtract(powers[missing]);
+                }
+                powers[missing] = powers[missing].multiply(BigInteger.valueOf(this.otherCharacters[missing].length));
+            }
+            returnValue[length] = count;
+        }
+        return returnValue;
+    }
+
+    private char getRandomCharacter(IRandom random, char[] characters) {
+        return characters[random.getRandomInt(characters.length)];
+    }
+
+    private char getRandomCharacterFromPool(IRandom random) {
+        int max = this.characterPool.length();
+        int position = random.getRandomInt(max);
+        return characterPool.charAt(position);
+    }
+
+    private char getAdmissableChar(IRandom random) {
+        char returnValue = this.getRandomCharacterFromPool(random);
+        while (!this.isAdmissableChar(returnValue)) {
+            this.countRejectedCharacter();
+            returnValue = this.getRandomCharacterFromPool(random);
+        }
+        return returnValue;
+    }
+
+    private boolean isAdmissableChar(char character) {
+        if (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(character, CLASS_AMBIGUOUS)) {
+            return false;
+        }
+        if (this.includeVowels == TriValueBoolean.MUSTNOT && isOfClass(character, CLASS_VOWEL)) {
+            return false;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) {
+        PasswordFactory factory = (new Builder(new RandomGenerator())).mustIncludeUppercase().mustIncludeSymbols()
+                .mightNotBePronouncable().create();
+        for (int i = 0; i < 20; ++i) {
+            System.out.println(factory.getPassword(8));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.alexweinert.pwgen;
+
+import java.security.SecureRandom;
+
+/**
+ * Returns cryptographically strong random numbers based on Java's SecureRandom-class.
+ *
+ * Random bytes are fetched from the SecureRandom in large batches, so that drawing a number usually does not call
+ * into the SecureRandom at all, and each 64-bit word of them serves several numbers as described for
+ * BufferedRandomGenerator. Instances are not thread-safe; use split() to obtain a generator for each thread.
+ */
+public class SecureRandomGenerator extends BufferedRandomGenerator {
+
+    /** Number of random bytes fetched from the SecureRandom at once */
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final SecureRandom secureRandom;
+
+    /** Random bytes fetched from secureRandom */
+    private final byte[] buffer;
+    /** Position of the first byte in buffer that has not been used yet */
+    private int bufferPosition;
+
+    public SecureRandomGenerator() {
+        this(new SecureRandom(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /** Creates a generator that fetches bufferSize bytes from secureRandom at once */
+    public SecureRandomGenerator(SecureRandom secureRandom, int bufferSize) {
+        if (bufferSize < 8 || bufferSize % 8 != 0) {
+            throw new IllegalArgumentException("The buffer size must be a positive multiple of 8");
+        }
+        this.secureRandom = secureRandom;
+        this.buffer = new byte[bufferSize];
+        this.bufferPosition = bufferSize;
+    }
+
+    /** Returns a generator that draws from its own, independently seeded SecureRandom */
+    @Override
+    public ISplittableRandom split() {
+        return new SecureRandomGenerator(new SecureRandom(), this.buffer.length);
+    }
+
+    @Override
+    protected long getRandomLong() {
+        if (this.bufferPosition == this.buffer.length) {
+            this.secureRandom.nextBytes(this.buffer);
+            this.bufferPosition = 0;
+        }
+        long returnValue = 0;
+        for (int i = 0; i < 8; ++i) {
+            returnValue = (returnValue << 8) | (this.buffer[this.bufferPosition] & 0xFF);
+            // Do not keep used random bytes around
+            this.buffer[this.bufferPosition++] = 0;
+        }
+        return returnValue;
+    }
+}
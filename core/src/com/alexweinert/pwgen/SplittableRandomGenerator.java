@@ -0,0 +1,83 @@
+package com.alexweinert.pwgen;
+
+/**
+ * Returns random numbers from a SplitMix64 sequence, like Java 8's SplittableRandom-class, which is not available on
+ * Android.
+ *
+ * The generator is fast and splits into streams that are statistically independent, and the same seed always yields
+ * the same numbers and the same split-off generators. It is not cryptographically strong, so use it for reproducible
+ * runs and tests, and SecureRandomGenerator for passwords that are actually handed out. Values of the sequence are so
+ * cheap that getRandomInt draws a new one each time, which is faster than rejecting values with few bits, while
+ * getRandomBits shares them as described for BufferedRandomGenerator. Instances are not thread-safe.
+ */
+public class SplittableRandomGenerator extends BufferedRandomGenerator {
+
+    /** The default increment of the seed, 2^64 divided by the golden ratio */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    /** The increment of the seed, always odd */
+    private final long gamma;
+
+    public SplittableRandomGenerator(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SplittableRandomGenerator(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    @Override
+    public int getRandomInt(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        int bits = mix32(this.nextSeed());
+        int mask = max - 1;
+        if ((max & mask) == 0) {
+            return bits & mask;
+        }
+        // Reject values from the incomplete last interval of length max, so that all results are equally likely
+        int value = bits >>> 1;
+        int returnValue;
+        while (value + mask - (returnValue = value % max) < 0) {
+            value = mix32(this.nextSeed()) >>> 1;
+        }
+        return returnValue;
+    }
+
+    @Override
+    protected long getRandomLong() {
+        return mix64(this.nextSeed());
+    }
+
+    @Override
+    public ISplittableRandom split() {
+        return new SplittableRandomGenerator(mix64(this.nextSeed()), mixGamma(this.nextSeed()));
+    }
+
+    private long nextSeed() {
+        return (this.seed += this.gamma);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /** Returns an odd gamma with enough bit transitions to yield a good sequence */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return (transitions < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,412 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+
+/**
+ * Creates pronouncable passwords in the style of gpw: Each letter is picked with the probability with which it follows
+ * the two previous letters in a list of English words.
+ *
+ * All occurrences of trigrams in the word list are stored once in sorted order, along with the cumulative number of
+ * occurrences per pair of letters, so that picking the next letter takes a single random index into the occurrences of
+ * the previous two letters. A chain starts with the first two letters of a random trigram, and starts again if no
+ * trigram continues the previous two letters. If required, letters are capitalized, symbols are inserted, and digits
+ * are inserted, after which a new chain starts.
+ */
+public class TrigramPasswordFactory extends PasswordFactory {
+
+    /** Number of letters in the trigram table */
+    private static final int LETTER_COUNT = 26;
+
+    /**
+     * Each occurrence of a trigram in the word list as 26 * p + c, where p = 26 * first + second is the pair of its
+     * first two letters and c is its last letter, in ascending order
+     */
+    private static final short[] trigrams;
+    /**
+     * For each pair of letters p, the index of the first trigram in trigrams that starts with p, i.e., the number of
+     * trigrams that start with a pair before p. The last entry is the number of all trigrams
+     */
+    private static final int[] pairOffsets = new int[LETTER_COUNT * LETTER_COUNT + 1];
+
+    static {
+        trigrams = createTrigrams();
+    }
+
+    /** Probability out of 10 that a letter is capitalized if the password must include uppercase characters */
+    private static final int UPPERCASE_PROBABILITY = 2;
+    /** Probability out of 10 that a digit is inserted before a letter if the password must include digits */
+    private static final int DIGIT_PROBABILITY = 2;
+    /** Probability out of 10 that a symbol is inserted before a letter if the password must include symbols */
+    private static final int SYMBOL_PROBABILITY = 1;
+
+    public TrigramPasswordFactory(IRandom randomGenerator, TriValueBoolean mayIncludeAmbiguous,
+            TriValueBoolean mayIncludeVowels, TriValueBoolean mustIncludeSymbols, TriValueBoolean mustIncludeDigits,
+            TriValueBoolean mustIncludeUppercase, TriValueBoolean includeLowercase, PasswordFactoryMetrics metrics,
+            BlocklistFilter blocklist) {
+        super(randomGenerator, mayIncludeAmbiguous, mayIncludeVowels, mustIncludeSymbols, mustIncludeDigits,
+                mustIncludeUppercase, includeLowercase, metrics, blocklist);
+    }
+
+    @Override
+    protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+        int end = offset + length;
+        int rejectedPasswords = 0;
+        boolean isAdmissable;
+        do {
+            // The last two letters of the chain, or -1 if the chain has less than two letters
+            int pair = -1;
+            // The first two letters of the chain while only the first one has been written, or -1 otherwise
+            int startPair = -1;
+
+            for (int position = offset; position < end; ++position) {
+                if (pair >= 0) {
+                    if (this.includeDigits == TriValueBoolean.MUST && random.getRandomInt(10) < DIGIT_PROBABILITY) {
+                        destination[position] = this.getDigit(random);
+                        pair = -1;
+                        continue;
+                    }
+                    if (this.includeSymbols == TriValueBoolean.MUST
+                            && random.getRandomInt(10) < SYMBOL_PROBABILITY) {
+                        destination[position] = this.getSymbol(random);
+                        continue;
+                    }
+                }
+
+                int letter;
+                if (startPair >= 0) {
+                    letter = startPair % LETTER_COUNT;
+                    pair = startPair;
+                    startPair = -1;
+                } else if (pair < 0 || getPairCount(pair) == 0) {
+                    startPair = getRandomPair(random);
+                    letter = startPair / LETTER_COUNT;
+                    pair = -1;
+                } else {
+                    letter = getRandomLetter(random, pair);
+                    pair = (pair % LETTER_COUNT) * LETTER_COUNT + letter;
+                }
+
+                destination[position] = (char) ('a' + letter);
+                if (this.includeUppercase == TriValueBoolean.MUST
+                        && random.getRandomInt(10) < UPPERCASE_PROBABILITY) {
+                    destination[position] = Character.toUpperCase(destination[position]);
+                }
+            }
+
+            isAdmissable = this.isAdmissablePassword(destination, offset, length);
+            if (!isAdmissable) {
+                ++rejectedPasswords;
+                this.checkRejectedPasswords(rejectedPasswords, length);
+            }
+        } while (!isAdmissable);
+        this.countRejectedPasswords(rejectedPasswords);
+
+        return length;
+    }
+
+    /** Returns a pair of letters with the probability with which it starts a trigram */
+    private static int getRandomPair(IRandom random) {
+        return trigrams[random.getRandomInt(trigrams.length)] / LETTER_COUNT;
+    }
+
+    /** Returns a letter with the probability with which it follows the given pair of letters */
+    private static int getRandomLetter(IRandom random, int pair) {
+        return trigrams[pairOffsets[pair] + random.getRandomInt(getPairCount(pair))] % LETTER_COUNT;
+    }
+
+    /** Returns the number of trigrams that start with the given pair of letters */
+    private static int getPairCount(int pair) {
+        return pairOffsets[pair + 1] - pairOffsets[pair];
+    }
+
+    private char getDigit(IRandom random) {
+        char returnValue = pw_digits.charAt(random.getRandomInt(pw_digits.length()));
+        // If this may include ambiguous characters, one iteration is enough
+        while (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(returnValue, CLASS_AMBIGUOUS)) {
+            this.countRejectedCharacter();
+            returnValue = pw_digits.charAt(random.getRandomInt(pw_digits.length()));
+        }
+        return returnValue;
+    }
+
+    private char getSymbol(IRandom random) {
+        char returnValue = pw_symbols.charAt(random.getRandomInt(pw_symbols.length()));
+        // If this may include ambiguous characters, one iteration is enough
+        while (this.includeAmbiguous == TriValueBoolean.MUSTNOT && isOfClass(returnValue, CLASS_AMBIGUOUS)) {
+            this.countRejectedCharacter();
+            returnValue = pw_symbols.charAt(random.getRandomInt(pw_symbols.length()));
+        }
+        return returnValue;
+    }
+
+    /**
+     * Counts the passwords along the states of the generation, which are determined by the password so far: Either a
+     * new chain starts, the chain has one letter, or the chain continues from a pair of letters.
+     */
+    @Override
+    protected BigInteger[] countPasswords(int maximumLength) {
+        int requiredClasses = 0;
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_UPPERCASE;
+        }
+        if (this.includeDigits == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_DIGIT;
+        }
+        if (this.includeSymbols == TriValueBoolean.MUST) {
+            requiredClasses |= CLASS_SYMBOL;
+        }
+        BigInteger letterWeight = BigInteger.valueOf((requiredClasses & CLASS_UPPERCASE) != 0 ? 2 : 1);
+        BigInteger digitWeight = BigInteger.valueOf(this.getAdmissableCount(pw_digits));
+        BigInteger symbolWeight = BigInteger.valueOf(this.getAdmissableCount(pw_symbols));
+
+        // States: 0 starts a chain, 1 + l has the single letter l, 1 + 26 + p continues from the pair p
+        int pairStates = 1 + LETTER_COUNT;
+        int stateCount = pairStates + LETTER_COUNT * LETTER_COUNT;
+        int classCount = requiredClasses + 1;
+
+        BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+        BigInteger[] counts = new BigInteger[stateCount * classCount];
+        counts[0] = BigInteger.ONE;
+        for (int length = 0; length <= maximumLength; ++length) {
+            BigInteger count = BigInteger.ZERO;
+            for (int state = 0; state < stateCount; ++state) {
+                if (counts[state * classCount + requiredClasses] != null) {
+                    count = count.add(counts[state * classCount + requiredClasses]);
+                }
+            }
+            returnValue[length] = count;
+            if (length == maximumLength) {
+                break;
+            }
+
+            BigInteger[] nextCounts = new BigInteger[counts.length];
+            for (int index = 0; index < counts.length; ++index) {
+                BigInteger paths = counts[index];
+                if (paths == null) {
+                    continue;
+                }
+                int state = index / classCount;
+                int classes = index % classCount;
+                // With an uppercase variant, every letter includes the uppercase class in one of its variants
+                int letterClasses = classes | (requiredClasses & CLASS_UPPERCASE);
+
+                if (state >= pairStates) {
+                    int pair = state - pairStates;
+                    if (digitWeight.signum() > 0 && (requiredClasses & CLASS_DIGIT) != 0) {
+                        addPaths(nextCounts, classes | CLASS_DIGIT, paths.multiply(digitWeight));
+                    }
+                    if (symbolWeight.signum() > 0 && (requiredClasses & CLASS_SYMBOL) != 0) {
+                        addPaths(nextCounts, state * classCount + (classes | CLASS_SYMBOL),
+                                paths.multiply(symbolWeight));
+                    }
+                    if (getPairCount(pair) > 0) {
+                        for (int i = pairOffsets[pair]; i < pairOffsets[pair + 1]; ++i) {
+                            // Count each letter that follows the pair once
+                            if (i > pairOffsets[pair] && trigrams[i] == trigrams[i - 1]) {
+                                continue;
+                            }
+                            int nextPair = trigrams[i] % (LETTER_COUNT * LETTER_COUNT);
+                            this.addLetterPaths(nextCounts, (pairStates + nextPair) * classCount, classes,
+                                    letterClasses, paths);
+                        }
+                        continue;
+                    }
+                    // The chain cannot be continued and starts again
+                    state = 0;
+                }
+
+                if (state == 0) {
+                    for (int letter = 0; letter < LETTER_COUNT; ++letter) {
+                        if (pairOffsets[(letter + 1) * LETTER_COUNT] > pairOffsets[letter * LETTER_COUNT]) {
+                            this.addLetterPaths(nextCounts, (1 + letter) * classCount, classes, letterClasses, paths);
+                        }
+                    }
+                } else {
+                    int first = state - 1;
+                    for (int letter = 0; letter < LETTER_COUNT; ++letter) {
+                        int pair = first * LETTER_COUNT + letter;
+                        if (getPairCount(pair) > 0) {
+                            this.addLetterPaths(nextCounts, (pairStates + pair) * classCount, classes, letterClasses,
+                                    paths);
+                        }
+                    }
+                }
+            }
+            counts = nextCounts;
+        }
+        return returnValue;
+    }
+
+    /**
+     * Adds the paths that append a lowercase letter, and its uppercase variant if the password must include uppercase
+     * characters, to the state starting at stateIndex
+     */
+    private void addLetterPaths(BigInteger[] counts, int stateIndex, int classes, int letterClasses,
+            BigInteger paths) {
+        addPaths(counts, stateIndex + classes, paths);
+        if (this.includeUppercase == TriValueBoolean.MUST) {
+            addPaths(counts, stateIndex + letterClasses, paths);
+        }
+    }
+
+    private static void addPaths(BigInteger[] counts, int index, BigInteger paths) {
+        counts[index] = (counts[index] == null) ? paths : counts[index].add(paths);
+    }
+
+    /** Returns the number of characters from pool that getDigit or getSymbol may return */
+    private int getAdmissableCount(String pool) {
+        int returnValue = 0;
+        for (int i = 0; i < pool.length(); ++i) {
+            if (this.includeAmbiguous != TriValueBoolean.MUSTNOT || !isOfClass(pool.charAt(i), CLASS_AMBIGUOUS)) {
+                ++returnValue;
+            }
+        }
+        return returnValue;
+    }
+
+    /** Returns the occurrences of trigrams in WORDS in ascending order, and fills pairOffsets */
+    private static short[] createTrigrams() {
+        int[] counts = new int[LETTER_COUNT * LETTER_COUNT * LETTER_COUNT];
+        int total = 0;
+        for (String word : WORDS.split(" ")) {
+            for (int i = 0; i + 2 < word.length(); ++i) {
+                int pair = (word.charAt(i) - 'a') * LETTER_COUNT + (word.charAt(i + 1) - 'a');
+                ++counts[pair * LETTER_COUNT + (word.charAt(i + 2) - 'a')];
+                ++total;
+            }
+        }
+
+        short[] returnValue = new short[total];
+        int position = 0;
+        for (int trigram = 0; trigram < counts.length; ++trigram) {
+            if (trigram % LETTER_COUNT == 0) {
+                pairOffsets[trigram / LETTER_COUNT] = position;
+            }
+            for (int i = 0; i < counts[trigram]; ++i) {
+                returnValue[position++] = (short) trigram;
+            }
+        }
+        pairOffsets[pairOffsets.length - 1] = position;
+        return returnValue;
+    }
+
+    public static void main(String[] args) {
+        PasswordFactory factory = (new Builder(new RandomGenerator())).mustIncludeUppercase().mustIncludeDigits()
+                .mustBePronouncable().useTrigrams().create();
+        for (int i = 0; i < 20; ++i) {
+            System.out.println(factory.getPassword(8));
+        }
+    }
+
+    /** The word list from which the trigrams are counted, separated by single spaces */
+    private static final String WORDS = ""
+            + "about above absent accept access accident account across action active actor actual adapt address "
+            + "admire adult advance advice afford afraid after afternoon again against agent agree ahead airport "
+            + "alarm album alcohol alert alive allow almost alone along already also alter always amazing among "
+            + "amount anchor ancient anger angle animal ankle announce annual another answer anxious anyone apart "
+            + "appear apple approve april arch arena argue arise armor around arrange arrival arrow artist aside "
+            + "asleep aspect assist assume attack attempt attend attract auction august autumn average avoid awake "
+            + "award aware away awful baby bachelor back bacon badge balance balcony ball bamboo banana banner "
+            + "barber bargain barrel basket battle beach beauty become before begin behave behind believe below "
+            + "bench benefit berry better between beyond bicycle binder biology bird birth bitter blanket blossom "
+            + "board boat body border borrow bottle bottom bounce bracket brain branch brand brave bread breathe "
+            + "brick bridge brief bright bring broken brother brown bubble bucket budget buffalo build bundle "
+            + "burden butter button cabin cable cactus camera campaign canal candle cannon canvas canyon capital "
+            + "captain carbon career careful cargo carpet carrot castle casual catalog cattle caught cause caution "
+            + "ceiling celery cement census center century cereal certain chair chalk champion change chapter "
+            + "charge chase cheap check cheese cherry chicken chief child chimney choice choose chorus cinema "
+            + "circle citizen city civil claim clarify clever client cliff climate clinic clock close cloth cloud "
+            + "clover cluster coach coconut coffee collect colony color column combine comfort comic common company "
+            + "concert conduct confirm connect consider control convince cookie copper corner correct cotton couch "
+            + "country couple course cousin cover coyote crack cradle craft crane crater crazy cream credit creek "
+            + "crew cricket crisp critic crop cross crowd crucial cruise crystal culture cupboard curious current "
+            + "curtain cushion custom cycle damage dance danger daring daughter dealer debate decade decide declare "
+            + "decline decorate defense define degree delay deliver demand denial dentist depart depend deposit "
+            + "depth deputy describe desert design detail detect develop device devote diagram diamond diary diesel "
+            + "differ digital dinner dinosaur direct discover disease dish display distance divide doctor document "
+            + "dolphin domain donate donkey double dragon drama drastic dream dress drift drink during dust duty "
+            + "dwarf dynamic eager eagle early earth easily east easy echo ecology economy edge edit educate effort "
+            + "eight either elbow elder electric elegant element elephant elevator elite else embark embody embrace "
+            + "emerge emotion employ empower empty enable enact endless endorse enemy energy enforce engage engine "
+            + "enhance enjoy enlist enough enrich enroll ensure enter entire entry envelope episode equal equip "
+            + "erase erode erosion error escape essay essence estate eternal evening evidence evil evolve exact "
+            + "example excess exchange excite exclude excuse execute exercise exhaust exhibit exile exist exotic "
+            + "expand expect expire explain expose express extend extra fabric faculty fading faint faith family "
+            + "famous fancy fantasy farmer fashion father fatigue fault favorite feature february federal fence "
+            + "festival fever fiber fiction field figure filter final finger finish firm first fiscal fitness flag "
+            + "flame flavor flight float flower fluid focus follow forest forget fortune forum forward fossil "
+            + "foster found fragile frame frequent fresh friend fringe frog front frozen fruit funny furnace future "
+            + "gadget galaxy gallery garage garden garlic garment gather gauge general genius gentle genuine "
+            + "gesture ghost giant giraffe glance glare glass glide glimpse globe gloom glory glove glow golden "
+            + "gorilla gospel gossip govern gown grab grace grain grant grape grass gravity great green grid grief "
+            + "grocery group grow grunt guard guess guide guitar habit hammer hamster handle happy harbor harvest "
+            + "hawk hazard health heart heavy hedgehog height hello helmet hero hidden highway hill hint history "
+            + "hobby hockey holiday hollow honey hood hope horizon horse hospital hotel hover human humble humor "
+            + "hundred hungry hurdle hurry husband hybrid iceberg idea identify idle ignore illegal illness image "
+            + "imitate immense immune impact impose improve impulse inch include income increase index indicate "
+            + "indoor industry infant inflict inform inhale inherit initial inject injury inmate inner innocent "
+            + "input inquiry insane insect inside inspire install intact interest into invest invite involve iron "
+            + "island isolate issue item ivory jacket jaguar jealous jelly jewel join journey judge juice jungle "
+            + "junior justice kangaroo keen kettle kidney kingdom kitchen kitten knee knife knock label labor "
+            + "ladder lady lagoon lamp language laptop large later latin laugh laundry lawn lawsuit layer leader "
+            + "leaf learn leave lecture legal legend leisure lemon length lens leopard lesson letter level liberty "
+            + "library license light limit linen lion liquid listen little live lizard lobster local logic lonely "
+            + "lottery loud lounge lucky lumber lunar lunch luxury lyrics machine magic magnet maiden mammal mango "
+            + "mansion manual maple marble march margin marine market marriage mask master matrix matter maximum "
+            + "meadow measure media melody member memory mention menu mercy merge merit merry message metal method "
+            + "middle midnight million mimic mineral minimum minor minute miracle mirror misery mistake mixture "
+            + "mobile model modify moment monitor monkey monster month moral morning mosquito mother motion motor "
+            + "mountain mouse movie muffin multiply muscle museum mushroom music mutual myself mystery napkin "
+            + "narrow nation nature near neck negative neglect neither nephew nerve network neutral never news next "
+            + "nice night noble noise nominee noodle normal north notable nothing notice novel number nurse object "
+            + "oblige obscure observe obtain obvious occur ocean october odor offer office often olive olympic omit "
+            + "once onion online open opera opinion oppose option orange orbit orchard order ordinary organ orient "
+            + "original orphan ostrich other outdoor outer output outside oval oven over owner oxygen oyster ozone "
+            + "paddle page palace panda panel panic panther paper parade parent parrot party pass patch path "
+            + "patient patrol pattern pause payment peace peanut pelican penalty pencil people pepper perfect "
+            + "permit person photo phrase physical piano picnic picture piece pilot pioneer pistol pitch pizza "
+            + "place planet plastic plate player please pledge pluck plunge poem poet point polar police pond pony "
+            + "popular portion position possible potato pottery poverty powder power practice praise predict prefer "
+            + "prepare present pretty prevent price pride primary print priority prison private prize problem "
+            + "process produce profit program project promote proof property prosper protect proud provide public "
+            + "pudding pull pulse pumpkin punch pupil puppy purchase purity purpose purse puzzle pyramid quality "
+            + "quantum quarter question quick quit quiz quote rabbit raccoon radar radio rail rain raise rally ramp "
+            + "ranch random range rapid rather raven razor ready real reason rebel rebuild recall receive recipe "
+            + "record recycle reduce reflect reform refuse region regret regular reject relax release relief remain "
+            + "remember remind remove render renew rent reopen repair repeat replace report require rescue resemble "
+            + "resist resource response result retire retreat return reunion reveal review reward rhythm ribbon "
+            + "rice rich ride ridge rifle right rigid ring riot ripple risk ritual rival river road roast robot "
+            + "robust rocket romance roof rookie room rose rotate rough round route royal rubber rude rugby ruler "
+            + "rumor runway rural saddle sadness safe sailor salad salmon salon salt salute same sample sand "
+            + "satisfy sauce sausage save scale scan scare scatter scene scheme school science scissors scorpion "
+            + "scout scrap screen script scrub search season seat second secret section security seed seek segment "
+            + "select sell seminar senior sense sentence series service session settle setup seven shadow shaft "
+            + "shallow share shed shell sheriff shield shift shine ship shiver shock shoe shoot shop short shoulder "
+            + "shove shrimp shrug shuffle sibling siege sight sign silent silk silly silver similar simple since "
+            + "sing siren sister situate size skate sketch skill skin skirt skull slender slice slide slight slim "
+            + "slogan slot slow slush small smart smile smoke smooth snack snake snap sniff snow soap soccer social "
+            + "sock soda soft solar soldier solid solution solve someone song soon sorry sort soul sound soup "
+            + "source south space spare spatial spawn speak special speed spell spend sphere spice spider spike "
+            + "spirit split spoil sponsor spoon sport spot spray spread spring square squeeze squirrel stable "
+            + "stadium staff stage stairs stamp stand start state stay steak steel stem step stereo stick still "
+            + "sting stock stomach stone stool story stove strategy street strike strong struggle student stuff "
+            + "stumble style subject submit subway success such sudden suffer sugar suggest suit summer sunny "
+            + "sunset super supply supreme sure surface surge surprise surround survey suspect sustain swallow "
+            + "swamp swap swarm swear sweet swift swim swing switch sword symbol symptom syrup system table tackle "
+            + "tail talent target taste tattoo taxi teach team tell tenant tennis tent term test text thank that "
+            + "theme then theory there they thing this thought three thrive throw thumb thunder ticket tide tiger "
+            + "tilt timber time tiny tip tired tissue title toast tobacco today toddler together toilet token "
+            + "tomato tomorrow tone tongue tonight tool tooth topic topple torch tornado tortoise toss total "
+            + "tourist toward tower town trade traffic tragic train transfer trap trash travel tray treat tree "
+            + "trend trial tribe trick trigger trim trip trophy trouble truck true truly trumpet trust truth tunnel "
+            + "turkey turn turtle twelve twenty twice twin twist type typical ugly umbrella unable unaware uncle "
+            + "uncover under undo unfair unfold unhappy uniform unique unit universe unknown unlock until unusual "
+            + "unveil update upgrade uphold upon upper upset urban usage useful useless usual utility vacant vacuum "
+            + "vague valid valley valve vanish vapor various vast vault vehicle velvet vendor venture venue verb "
+            + "verify version very vessel veteran viable vibrant vicious victory video view village vintage violin "
+            + "virtual virus visa visit visual vital vivid vocal voice volcano volume vote voyage wage wagon wait "
+            + "walk wall walnut want warfare warm warrior wash wasp waste water wave weapon wear weasel weather "
+            + "wedding weekend weird welcome west whale wheat wheel whisper wide width wife wild will window wine "
+            + "wing wink winner winter wire wisdom wise wish witness wolf woman wonder wood wool word work world "
+            + "worry worth wrap wreck wrestle wrist write wrong yard year yellow young youth zebra zero zone";
+}
@@ -0,0 +1,152 @@
+package com.alexweinert.pwgen;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A list of words read from a memory-mapped file.
+ *
+ * The file holds one word per line in ASCII. If a line has several whitespace-separated fields, as in Diceware lists
+ * that precede each word with its dice rolls, the last field is the word. Empty lines are skipped. Only the offset and
+ * length of each word are kept on the heap, the words themselves are read from the mapped file when needed, so that
+ * large lists neither take long to open nor take up much memory. Word lists are immutable and may be shared between
+ * threads.
+ */
+public class WordList {
+
+    /** The contents of the file */
+    private final ByteBuffer contents;
+    /** The position of each word in contents */
+    private final int[] offsets;
+    /** The length of each word in bytes */
+    private final byte[] lengths;
+    /** The length of the longest word */
+    private final int maximumLength;
+
+    private WordList(ByteBuffer contents, int[] offsets, byte[] lengths, int maximumLength) {
+        this.contents = contents;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.maximumLength = maximumLength;
+    }
+
+    /**
+     * Maps the given file into memory and indexes its words.
+     *
+     * @throws IOException
+     *             if the file cannot be read, contains no words, or contains a word that is not ASCII or longer than
+     *             127 characters
+     */
+    public static WordList map(File file) throws IOException {
+        ByteBuffer contents;
+        FileInputStream stream = new FileInputStream(file);
+        try {
+            FileChannel channel = stream.getChannel();
+            // The mapping stays valid after the channel is closed
+            contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            stream.close();
+        }
+
+        int count = indexWords(contents, null, null);
+        if (count == 0) {
+            throw new IOException(file + " contains no words");
+        }
+        int[] offsets = new int[count];
+        byte[] lengths = new byte[count];
+        int maximumLength = indexWords(contents, offsets, lengths);
+        return new WordList(contents, offsets, lengths, maximumLength);
+    }
+
+    /**
+     * Finds the words in contents. If offsets is null, returns the number of words. Otherwise, stores the offset and
+     * length of each word in offsets and lengths and returns the length of the longest word.
+     */
+    private static int indexWords(ByteBuffer contents, int[] offsets, byte[] lengths) throws IOException {
+        int count = 0;
+        int maximumLength = 0;
+        int line = 1;
+        int position = 0;
+        int end = contents.limit();
+        while (position < end) {
+            // Find the last field of the line
+            int wordStart = -1, wordEnd = -1;
+            while (position < end && contents.get(position) != '\n') {
+                int character = contents.get(position);
+                if (character == ' ' || character == '\t' || character == '\r') {
+                    ++position;
+                    continue;
+                }
+                wordStart = position;
+                while (position < end && !isSeparator(contents.get(position))) {
+                    if (contents.get(position) < 0) {
+                        throw new IOException("The word in line " + line + " is not ASCII");
+                    }
+                    ++position;
+                }
+                wordEnd = position;
+            }
+            ++position;
+
+            if (wordStart >= 0) {
+                int length = wordEnd - wordStart;
+                if (length > Byte.MAX_VALUE) {
+                    throw new IOException("The word in line " + line + " is longer than " + Byte.MAX_VALUE
+                            + " characters");
+                }
+                if (offsets != null) {
+                    offsets[count] = wordStart;
+                    lengths[count] = (byte) length;
+                }
+                maximumLength = Math.max(maximumLength, length);
+                ++count;
+            }
+            ++line;
+        }
+        return (offsets == null) ? count : maximumLength;
+    }
+
+    private static boolean isSeparator(byte character) {
+        return character == ' ' || character == '\t' || character == '\r' || character == '\n';
+    }
+
+    /** Returns the number of words */
+    public int size() {
+        return this.offsets.length;
+    }
+
+    /** Returns the length of the given word */
+    public int getLength(int index) {
+        return this.lengths[index];
+    }
+
+    /** Returns the length of the longest word */
+    public int getMaximumLength() {
+        return this.maximumLength;
+    }
+
+    /** Returns the character at the given position of the given word */
+    public char getCharacter(int index, int position) {
+        return (char) this.contents.get(this.offsets[index] + position);
+    }
+
+    /** Copies the given word into destination, starting at offset, and returns its length */
+    public int getWord(int index, char[] destination, int offset) {
+        int start = this.offsets[index];
+        int length = this.lengths[index];
+        for (int i = 0; i < length; ++i) {
+            destination[offset + i] = (char) this.contents.get(start + i);
+        }
+        return length;
+    }
+
+    /** Returns the given word */
+    public String getWord(int index) {
+        char[] word = new char[this.getLength(index)];
+        this.getWord(index, word, 0);
+        return String.valueOf(word);
+    }
+}
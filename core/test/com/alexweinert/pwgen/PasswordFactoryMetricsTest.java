@@ -0,0 +1,64 @@
+package com.alexweinert.pwgen;
+
+/**
+ * Tests that PasswordFactoryMetrics counts the same work alike, no matter which method of PasswordFactory performs
+ * it. Exits with status 1 if a test fails.
+ *
+ * Usage: PasswordFactoryMetricsTest
+ */
+public class PasswordFactoryMetricsTest {
+
+    private static final int COUNT = 100;
+    private static final int LENGTH = 8;
+    private static final long SEED = 42;
+
+    private static PasswordFactory createFactory(PasswordFactoryMetrics metrics) {
+        return new PasswordFactory.Builder(new SplittableRandomGenerator(SEED)).mightNotBePronouncable()
+                .collectMetrics(metrics).create();
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void testBatchCountsLikeSinglePasswords() {
+        PasswordFactoryMetrics singleMetrics = new PasswordFactoryMetrics();
+        PasswordFactory singleFactory = createFactory(singleMetrics);
+        StringBuilder singlePasswords = new StringBuilder();
+        for (int i = 0; i < COUNT; ++i) {
+            singlePasswords.append(singleFactory.getPassword(LENGTH));
+        }
+
+        PasswordFactoryMetrics batchMetrics = new PasswordFactoryMetrics();
+        PasswordBatch batch = createFactory(batchMetrics).getPasswords(COUNT, LENGTH);
+        StringBuilder batchPasswords = new StringBuilder();
+        for (int i = 0; i < batch.size(); ++i) {
+            batchPasswords.append(batch.getPassword(i));
+        }
+
+        check(singlePasswords.toString().equals(batchPasswords.toString()),
+                "The same seed must lead to the same passwords");
+        check(singleMetrics.getGeneratedPasswordCount() == COUNT, "Expected " + COUNT + " generated passwords, found "
+                + singleMetrics.getGeneratedPasswordCount());
+        check(batchMetrics.getGeneratedPasswordCount() == COUNT, "Expected " + COUNT + " generated passwords, found "
+                + batchMetrics.getGeneratedPasswordCount());
+        check(singleMetrics.getRandomIntCount() > 0, "Expected the random draws to be counted");
+        check(batchMetrics.getRandomIntCount() == singleMetrics.getRandomIntCount(), "getPasswords counted "
+                + batchMetrics.getRandomIntCount() + " random draws, getPassword " + singleMetrics.getRandomIntCount());
+    }
+
+    private static void testExternalGeneratorIsCounted() {
+        PasswordFactoryMetrics metrics = new PasswordFactoryMetrics();
+        PasswordFactory factory = createFactory(metrics);
+        factory.getPasswords(new SplittableRandomGenerator(SEED), COUNT, LENGTH);
+        check(metrics.getRandomIntCount() > 0, "Expected the draws from a given generator to be counted");
+    }
+
+    public static void main(String[] args) {
+        testBatchCountsLikeSinglePasswords();
+        testExternalGeneratorIsCounted();
+        System.out.println("All tests passed");
+    }
+}
@@ -0,0 +1,227 @@
+package com.alexweinert.pwgen;
+
+import java.math.BigInteger;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests PasswordPrefetcher on a plain JVM, without Android.
+ *
+ * Uses factories that fill each password with a single marker character, so that every password shows which factory
+ * created it, and that can be held inside generatePassword to control the background thread. Exits with status 1 if a
+ * test fails.
+ *
+ * Usage: PasswordPrefetcherTest
+ */
+public class PasswordPrefetcherTest {
+
+    private static final int CAPACITY = 4;
+    private static final int LENGTH = 8;
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    /** Creates passwords that consist of marker only and counts them */
+    private static class MarkerFactory extends PasswordFactory {
+        private final char marker;
+        /** If not null, each password waits for a permit */
+        private final Semaphore permits;
+        final AtomicInteger generatedCount = new AtomicInteger();
+        /** The thread that generated the last password */
+        volatile Thread lastThread;
+
+        MarkerFactory(char marker, Semaphore permits) {
+            super(new RandomGenerator(), null, null, null, null, null, null, null, null);
+            this.marker = marker;
+            this.permits = permits;
+        }
+
+        @Override
+        protected int generatePassword(IRandom random, char[] destination, int offset, int length) {
+            if (this.permits != null) {
+                this.permits.acquireUninterruptibly();
+            }
+            for (int i = offset; i < offset + length; ++i) {
+                destination[i] = this.marker;
+            }
+            this.lastThread = Thread.currentThread();
+            this.generatedCount.incrementAndGet();
+            return length;
+        }
+
+        @Override
+        protected BigInteger[] countPasswords(int maximumLength) {
+            BigInteger[] returnValue = new BigInteger[maximumLength + 1];
+            for (int length = 0; length <= maximumLength; ++length) {
+                returnValue[length] = BigInteger.ONE;
+            }
+            return returnValue;
+        }
+    }
+
+    private static String repeat(char character) {
+        char[] returnValue = new char[LENGTH];
+        java.util.Arrays.fill(returnValue, character);
+        return String.valueOf(returnValue);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /** Waits until the prefetcher stores the given number of passwords */
+    private static void awaitAvailable(PasswordPrefetcher prefetcher, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (prefetcher.getAvailableCount() != count) {
+            check(System.currentTimeMillis() < deadline, "Expected " + count + " stored passwords, found "
+                    + prefetcher.getAvailableCount());
+            Thread.sleep(1);
+        }
+    }
+
+    private static void testRejectsInvalidCapacity() {
+        try {
+            new PasswordPrefetcher(new MarkerFactory('a', null), 0, LENGTH);
+            throw new AssertionError("A capacity of 0 was accepted");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    /** Fills up to the capacity in the background, and next() takes stored passwords without generating */
+    private static void testFillsBuffer() throws InterruptedException {
+        MarkerFactory factory = new MarkerFactory('a', null);
+        PasswordPrefetcher prefetcher = new PasswordPrefetcher(factory, CAPACITY, LENGTH);
+        prefetcher.start();
+        try {
+            awaitAvailable(prefetcher, CAPACITY);
+            prefetcher.stop();
+            int generatedCount = factory.generatedCount.get();
+            for (int i = 0; i < CAPACITY; ++i) {
+                check(prefetcher.next().equals(repeat('a')), "Unexpected password");
+            }
+            check(factory.generatedCount.get() == generatedCount, "next() generated a stored password again");
+            check(prefetcher.getAvailableCount() == 0, "The buffer was not drained");
+
+            // Once drained, next() generates on the calling thread
+            check(prefetcher.next().equals(repeat('a')), "Unexpected password");
+            check(factory.lastThread == Thread.currentThread(), "next() did not generate on the calling thread");
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    /** setFactory discards the stored passwords and refills from the new factory */
+    private static void testSetFactoryInvalidates() throws InterruptedException {
+        PasswordPrefetcher prefetcher = new PasswordPrefetcher(new MarkerFactory('a', null), CAPACITY, LENGTH);
+        prefetcher.start();
+        try {
+            awaitAvailable(prefetcher, CAPACITY);
+            prefetcher.setFactory(new MarkerFactory('b', null));
+            awaitAvailable(prefetcher, CAPACITY);
+            for (int i = 0; i < CAPACITY; ++i) {
+                check(prefetcher.next().equals(repeat('b')), "A password of the previous factory was returned");
+            }
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    /** A password that is being generated while the factory changes is not stored */
+    private static void testDropsPasswordOfPreviousVersion() throws InterruptedException {
+        Semaphore permits = new Semaphore(0);
+        MarkerFactory oldFactory = new MarkerFactory('a', permits);
+        PasswordPrefetcher prefetcher = new PasswordPrefetcher(oldFactory, CAPACITY, LENGTH);
+        prefetcher.start();
+        try {
+            // Wait until the producer is held inside the old factory
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (!permits.hasQueuedThreads()) {
+                check(System.currentTimeMillis() < deadline, "The producer did not start");
+                Thread.sleep(1);
+            }
+            prefetcher.setFactory(new MarkerFactory('b', null));
+            permits.release(Integer.MAX_VALUE / 2);
+
+            awaitAvailable(prefetcher, CAPACITY);
+            check(oldFactory.generatedCount.get() == 1, "The producer kept using the previous factory");
+            for (int i = 0; i < CAPACITY; ++i) {
+                check(prefetcher.next().equals(repeat('b')), "A password of the previous factory was stored");
+            }
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    /** next(IPasswordCallback) calls back right away if a password is stored */
+    private static void testCallbackWithStoredPassword() throws InterruptedException {
+        PasswordPrefetcher prefetcher = new PasswordPrefetcher(new MarkerFactory('a', null), CAPACITY, LENGTH);
+        prefetcher.start();
+        try {
+            awaitAvailable(prefetcher, CAPACITY);
+            prefetcher.stop();
+            final AtomicReference<Thread> callbackThread = new AtomicReference<Thread>();
+            prefetcher.next(new IPasswordCallback() {
+                @Override
+                public void onPassword(String password) {
+                    check(password.equals(repeat('a')), "Unexpected password");
+                    callbackThread.set(Thread.currentThread());
+                }
+            });
+            check(callbackThread.get() == Thread.currentThread(), "The stored password was not passed right away");
+            check(prefetcher.getAvailableCount() == CAPACITY - 1, "The stored password was not taken");
+        } finally {
+            prefetcher.stop();
+        }
+    }
+
+    /**
+     * next(IPasswordCallback) never generates on the calling thread, but waits for the background thread, also after
+     * the factory changed
+     */
+    private static void testCallbackWaitsForProducer() throws InterruptedException {
+        Semaphore permits = new Semaphore(0);
+        PasswordPrefetcher prefetcher = new PasswordPrefetcher(new MarkerFactory('a', null), CAPACITY, LENGTH);
+        MarkerFactory factory = new MarkerFactory('b', permits);
+        prefetcher.setFactory(factory);
+        prefetcher.start();
+        try {
+            final Semaphore called = new Semaphore(0);
+            final AtomicReference<String> password = new AtomicReference<String>();
+            final AtomicReference<Thread> callbackThread = new AtomicReference<Thread>();
+            // Returns although the factory is held, so it does not generate on this thread
+            prefetcher.next(new IPasswordCallback() {
+                @Override
+                public void onPassword(String generated) {
+                    password.set(generated);
+                    callbackThread.set(Thread.currentThread());
+                    called.release();
+                }
+            });
+            check(called.availablePermits() == 0, "Called back before a password was generated");
+
+            permits.release();
+            check(called.tryAcquire(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS), "Not called back");
+            check(password.get().equals(repeat('b')), "Unexpected password");
+            check(callbackThread.get() != Thread.currentThread(), "Called back on the calling thread");
+            check(factory.generatedCount.get() == 1, "Unexpected number of passwords");
+            // The password went to the callback instead of the buffer
+            check(prefetcher.getAvailableCount() == 0, "The password was also stored");
+        } finally {
+            prefetcher.stop();
+            permits.release(Integer.MAX_VALUE / 2);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        testRejectsInvalidCapacity();
+        testFillsBuffer();
+        testSetFactoryInvalidates();
+        testDropsPasswordOfPreviousVersion();
+        testCallbackWithStoredPassword();
+        testCallbackWaitsForProducer();
+        System.out.println("All tests passed");
+    }
+}
@@ -4,6 +4,7 @@ import java.util.LinkedList;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.util.SparseArray;
 import android.view.Menu;
 import android.view.View;
 import android.view.View.OnClickListener;
@@ -14,7 +15,19 @@ import android.widget.TextView;
 
 public class MainActivity extends Activity {
 
-    private PasswordFactory passwordFactory;
+    /** Length of the shown passwords */
+    private static final int PASSWORD_LENGTH = 8;
+    /** Number of passwords generated in advance for the current options */
+    private static final int PREFETCH_CAPACITY = 16;
+
+    /** Passwords for the current options, generated in the background */
+    private PasswordPrefetcher passwordPrefetcher;
+
+    /** The factories created so far, keyed by the selection of the option spinners they were created for */
+    private final SparseArray<PasswordFactory> passwordFactories = new SparseArray<PasswordFactory>();
+
+    /** The random number generator shared by all factories */
+    private final IRandom randomGenerator = new RandomGenerator();
 
     private static final int MUST_POSITION = 0;
     private static final int MAY_POSITION = 1;
@@ -29,10 +42,18 @@ public class MainActivity extends Activity {
         this.populateOptionSpinners();
         this.setupSpinnerHandlers();
 
-        this.updatePasswordFactory();
+        this.passwordPrefetcher = new PasswordPrefetcher(this.getPasswordFactory(), PREFETCH_CAPACITY,
+                PASSWORD_LENGTH);
+        this.passwordPrefetcher.start();
         this.createAndShowNewPassword();
     }
 
+    @Override
+    protected void onDestroy() {
+        this.passwordPrefetcher.stop();
+        super.onDestroy();
+    }
+
     private void setupReloadButtonHandler() {
         this.findViewById(R.id.reloadButton).setOnClickListener(new OnClickListener() {
 
@@ -64,12 +85,31 @@ public class MainActivity extends Activity {
     }
 
     private void updatePasswordFactory() {
-        PasswordFactory newFactory = this.createPasswordFactory();
-        this.passwordFactory = newFactory;
+        this.passwordPrefetcher.setFactory(this.getPasswordFactory());
+    }
+
+    /** Returns the factory for the current options, creating it if it has not been used yet */
+    private PasswordFactory getPasswordFactory() {
+        int optionsKey = this.getOptionsKey();
+        PasswordFactory returnValue = this.passwordFactories.get(optionsKey);
+        if (returnValue == null) {
+            returnValue = this.createPasswordFactory();
+            this.passwordFactories.put(optionsKey, returnValue);
+        }
+        return returnValue;
+    }
+
+    /** Returns a number that uniquely identifies the current selection of all option spinners */
+    private int getOptionsKey() {
+        int returnValue = 0;
+        for (Spinner spinner : this.getOptionSpinners()) {
+            returnValue = returnValue * 3 + spinner.getSelectedItemPosition();
+        }
+        return returnValue;
     }
 
     private PasswordFactory createPasswordFactory() {
-        PasswordFactory.Builder factoryBuilder = new PasswordFactory.Builder(new RandomGenerator());
+        PasswordFactory.Builder factoryBuilder = new PasswordFactory.Builder(this.randomGenerator);
         this.configurePasswordFactoryBuilder(factoryBuilder);
         return factoryBuilder.create();
     }
@@ -137,9 +177,25 @@ public class MainActivity extends Activity {
         }
     }
 
+    /**
+     * Shows a prefetched password right away, or the next one the prefetcher generates once it is ready, so that the
+     * UI thread never generates passwords itself
+     */
     private void createAndShowNewPassword() {
-        String password = this.passwordFactory.getPassword(8);
-        ((TextView) this.findViewById(R.id.passwordView)).setText(password);
+        this.passwordPrefetcher.next(new IPasswordCallback() {
+
+            @Override
+            public void onPassword(final String password) {
+                // The prefetcher may call back on its background thread
+                runOnUiThread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        ((TextView) findViewById(R.id.passwordView)).setText(password);
+                    }
+                });
+            }
+        });
     }
 
     @Override